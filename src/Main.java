@@ -1,17 +1,26 @@
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.util.Arrays;
 
 import controller.Controller;
 import controller.ControllerImpl;
 import controller.InteractiveController;
+import model.CachingImageModel;
 import model.EnhancedImageModel;
 import model.EnhancedImageModelImpl;
+import model.LazyImageModel;
+import model.ResultCache;
 import view.ImageView;
 import view.InteractiveGUI;
 
 /**
- * Marks the start of the program. Starts the program according to the command received.
+ * Marks the start of the program. Starts the program according to the command received. The
+ * command can be preceded by {@code -lazy}, in which case the operations are only performed once
+ * their result is needed, and by {@code -cache} or {@code -cache-dir <directory>}, in which case
+ * the results of the operations are kept and reused, in memory or also in files in the directory.
+ * {@code -cache-stats} keeps the results as {@code -cache} does, and also prints the statistics of
+ * the cache to the standard error when the program ends.
  */
 public class Main {
 
@@ -23,7 +32,39 @@ public class Main {
    * @throws FileNotFoundException    if the file passed as a script does not exist
    */
   public static void main(String[] args) throws IllegalArgumentException, FileNotFoundException {
-    EnhancedImageModel model = new EnhancedImageModelImpl();
+    boolean lazy = false;
+    boolean cached = false;
+    boolean cacheStats = false;
+    File spillDirectory = null;
+    int first = 0;
+    while (first < args.length) {
+      if (args[first].equals("-lazy")) {
+        lazy = true;
+        first++;
+      } else if (args[first].equals("-cache")) {
+        cached = true;
+        first++;
+      } else if (args[first].equals("-cache-stats")) {
+        cached = true;
+        cacheStats = true;
+        first++;
+      } else if (args[first].equals("-cache-dir") && first + 1 < args.length) {
+        cached = true;
+        spillDirectory = new File(args[first + 1]);
+        first += 2;
+      } else {
+        break;
+      }
+    }
+    args = Arrays.copyOfRange(args, first, args.length);
+    EnhancedImageModel model = lazy ? new LazyImageModel() : new EnhancedImageModelImpl();
+    if (cached) {
+      ResultCache cache = new ResultCache(Runtime.getRuntime().maxMemory() / 4, spillDirectory);
+      model = new CachingImageModel(model, cache);
+      if (cacheStats) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.println(cache)));
+      }
+    }
     Controller controller;
     if (args.length == 1 && args[0].equals("-interactive")) {
       ImageView view = new InteractiveGUI();
@@ -1,19 +1,38 @@
 package controller;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
 
 
 import model.EnhancedImageModel;
 import model.ImageFormats;
-import model.dither.DitherImpl;
+import model.dither.BlueNoise;
+import model.dither.OrderedDitherImpl;
+import model.dither.WavefrontDitherImpl;
 import model.filters.BlurFilter;
 import model.filters.SharpenFilter;
 import model.generateshapes.CheckerBoard;
@@ -23,10 +42,16 @@ import model.generateshapes.GenerateVerticalRainbow;
 import model.generateshapes.GreeceFlag;
 import model.generateshapes.SwissFlag;
 import model.image.Image;
-import model.image.SimpleImage;
+import model.image.Images;
+import model.image.PackedImage;
+import model.image.RawImageFile;
+import model.image.TiledImage;
+import model.image.WritableImage;
 import model.mosaic.MosaicImpl;
+import model.tranformations.ChainedTransform;
 import model.tranformations.GreyscaleTransform;
 import model.tranformations.SepiaToneTransform;
+import model.tranformations.Transform;
 
 /**
  * This class extends the Controller interface.Represents an abstract controller, containing the
@@ -36,6 +61,8 @@ public abstract class AbstractController implements Controller {
 
   protected EnhancedImageModel model;
   protected Map<String, Function<Scanner, EnhancedImageModel>> knownCommands;
+  protected Map<String, Supplier<Transform>> knownTransforms;
+  private final List<Transform> queuedTransforms;
 
   /**
    * Abstract Controller constructor,which initializes the model and the commands that can be
@@ -46,29 +73,80 @@ public abstract class AbstractController implements Controller {
   public AbstractController(EnhancedImageModel model) {
     this.model = model;
     this.knownCommands = new HashMap<>();
-    knownCommands.put("blur", s -> this.model.fromImage(this.model.applyFilter(
-            new BlurFilter()).getModelImage()));
-    knownCommands.put("sharpen", s -> this.model.fromImage(this.model.applyFilter(
-            new SharpenFilter()).getModelImage()));
-    knownCommands.put("sepia", s -> this.model.fromImage(this.model.applyTransform(
-            new SepiaToneTransform()).getModelImage()));
-    knownCommands.put("greyscale", s -> this.model.fromImage(this.model.applyTransform(
-            new GreyscaleTransform()).getModelImage()));
-    knownCommands.put("Generate,checkerboard", s -> this.model.fromImage(this.model.generateImage(
-            new CheckerBoard(s.nextInt())).getModelImage()));
-    knownCommands.put("Generate,greece,flag", s -> this.model.fromImage(this.model.generateImage(
-            new GreeceFlag(s.nextInt())).getModelImage()));
-    knownCommands.put("Generate,france,flag", s -> this.model.fromImage(this.model.generateImage(
-            new FranceFlag(s.nextInt())).getModelImage()));
-    knownCommands.put("Generate,swiss,flag", s -> this.model.fromImage(this.model.generateImage(
-            new SwissFlag(s.nextInt())).getModelImage()));
-    knownCommands.put("Generate,horizontal,rainbow", s -> this.model.fromImage(this.model
-            .generateImage(new GenerateHorizontalRainbow(s.nextInt(), s.nextInt()))
-            .getModelImage()));
-    knownCommands.put("Generate,vertical,rainbow", s -> this.model.fromImage(this.model
-            .generateImage(new GenerateVerticalRainbow(s.nextInt(), s.nextInt())).getModelImage()));
-    knownCommands.put("mosaic", s -> this.model.generateMosaic(new MosaicImpl(s.nextInt())));
-    knownCommands.put("dither", s -> this.model.generateDithered(new DitherImpl()));
+    this.knownTransforms = new HashMap<>();
+    this.queuedTransforms = new ArrayList<>();
+    knownTransforms.put("sepia", SepiaToneTransform::new);
+    knownTransforms.put("greyscale", GreyscaleTransform::new);
+    knownCommands.put("blur", s -> this.model.applyFilter(new BlurFilter()));
+    knownCommands.put("sharpen", s -> this.model.applyFilter(new SharpenFilter()));
+    knownCommands.put("sepia", s -> this.model.applyTransform(new SepiaToneTransform()));
+    knownCommands.put("greyscale", s -> this.model.applyTransform(new GreyscaleTransform()));
+    knownCommands.put("Generate,checkerboard", s -> this.model.generateImage(
+            new CheckerBoard(s.nextInt())));
+    knownCommands.put("Generate,greece,flag", s -> this.model.generateImage(
+            new GreeceFlag(s.nextInt())));
+    knownCommands.put("Generate,france,flag", s -> this.model.generateImage(
+            new FranceFlag(s.nextInt())));
+    knownCommands.put("Generate,swiss,flag", s -> this.model.generateImage(
+            new SwissFlag(s.nextInt())));
+    knownCommands.put("Generate,horizontal,rainbow", s -> this.model.generateImage(
+            new GenerateHorizontalRainbow(s.nextInt(), s.nextInt())));
+    knownCommands.put("Generate,vertical,rainbow", s -> this.model.generateImage(
+            new GenerateVerticalRainbow(s.nextInt(), s.nextInt())));
+    knownCommands.put("mosaic", s -> {
+      int seeds = s.nextInt();
+      return this.model.generateMosaic(s.hasNextLong() ? new MosaicImpl(seeds, s.nextLong())
+              : new MosaicImpl(seeds));
+    });
+    knownCommands.put("dither", s -> this.model.generateDithered(new WavefrontDitherImpl()));
+    knownCommands.put("ordered-dither", s -> this.model.generateDithered(s.hasNextInt()
+            ? new OrderedDitherImpl(s.nextInt()) : orderedDitherTile(s.next())));
+  }
+
+  /**
+   * Returns the ordered ditherer that uses the named tile of thresholds instead of a Bayer matrix.
+   *
+   * @param tile the name of the tile, only "blue" for the blue-noise tile
+   * @return the ordered ditherer
+   * @throws IllegalArgumentException if there is no tile of that name
+   */
+  private OrderedDitherImpl orderedDitherTile(String tile) throws IllegalArgumentException {
+    if (!"blue".equals(tile)) {
+      throw new IllegalArgumentException("matrix size should be one of 2, 4, 8 or 16, or blue.");
+    }
+    return new OrderedDitherImpl(BlueNoise.getTile());
+  }
+
+  /**
+   * Queues a transformation to be applied on the current image. Consecutive queued
+   * transformations are applied together in a single pass by {@link #applyQueuedTransforms()}.
+   *
+   * @param transform the transformation to be queued
+   */
+  protected void queueTransform(Transform transform) {
+    this.queuedTransforms.add(transform);
+  }
+
+  /**
+   * Applies all the queued transformations on the current image in a single pass and empties the
+   * queue. Does nothing if no transformation is queued.
+   */
+  protected void applyQueuedTransforms() {
+    if (this.queuedTransforms.isEmpty()) {
+      return;
+    }
+    Transform transform = this.queuedTransforms.size() == 1 ? this.queuedTransforms.get(0)
+            : new ChainedTransform(this.queuedTransforms);
+    this.queuedTransforms.clear();
+    this.model = this.model.applyTransform(transform);
+  }
+
+  /**
+   * Empties the queue of transformations without applying them, used when the current image is
+   * replaced before the transformations are needed.
+   */
+  protected void discardQueuedTransforms() {
+    this.queuedTransforms.clear();
   }
 
   /**
@@ -78,59 +156,346 @@ public abstract class AbstractController implements Controller {
    * @return instance of Image
    */
   protected Image load(File image) {
-    BufferedImage loadedImage;
+    return load(image, null, 1);
+  }
 
-    try {
-      loadedImage = ImageIO.read(image);
-      int y = loadedImage.getHeight();
-      int x = loadedImage.getWidth();
-
-      int[][][] loadImage = new int[3][x][y];
-
-      for (int i = 0; i < x; i++) {
-        for (int j = 0; j < y; j++) {
-          int clr = loadedImage.getRGB(i, j);
-          loadImage[0][i][j] = (clr >> 16) & 0xFF;
-          loadImage[1][i][j] = (clr >> 8) & 0xFF;
-          loadImage[2][i][j] = (clr) & 0xFF;
+  /**
+   * Returns the factor by which the given image file should be subsampled in both directions, so
+   * that it has at most the given number of pixels once decoded. Only the header of the file is
+   * read to find the size of the image.
+   *
+   * @param image     the image file
+   * @param maxPixels the largest number of pixels the decoded image may have
+   * @return the subsampling factor, 1 if the image fits or its size cannot be read
+   */
+  protected int getSubsampling(File image, long maxPixels) {
+    try (ImageInputStream input = ImageIO.createImageInputStream(image)) {
+      ImageReader reader = input == null ? null : getImageReader(input);
+      if (reader == null) {
+        return 1;
+      }
+      try {
+        long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+        int subsampling = 1;
+        while (pixels / ((long) subsampling * subsampling) > maxPixels) {
+          subsampling++;
         }
+        return subsampling;
+      } finally {
+        reader.dispose();
+      }
+    } catch (IOException e) {
+      return 1;
+    }
+  }
+
+  /**
+   * Returns an object of {@link Image} type holding part of the image in the given file, decoding
+   * only the given region and only every {@code subsampling}-th pixel of it in both directions.
+   * Pixels that are not needed are skipped by the decoder instead of being decoded and dropped, so
+   * a small preview of a very large image can be loaded quickly and in little memory. An image too
+   * large for the heap is decoded into a {@link TiledImage}, tile by tile if it is stored in tiles
+   * and in a single pass otherwise.
+   *
+   * @param image       the image to be loaded
+   * @param region      the region of the image to be decoded, or null for the whole image
+   * @param subsampling the distance between decoded pixels, 1 to decode every pixel
+   * @return instance of Image
+   * @throws IllegalArgumentException if the subsampling is less than 1 or the region does not
+   *                                  intersect the image
+   */
+  protected Image load(File image, Rectangle region, int subsampling)
+          throws IllegalArgumentException {
+    if (subsampling < 1) {
+      throw new IllegalArgumentException("subsampling should be greater than 0.");
+    }
+    if (RawImageFile.isRawImage(image)) {
+      try {
+        return subsample(RawImageFile.read(image), region, subsampling);
+      } catch (IOException e) {
+        e.printStackTrace();
+        return new PackedImage(1, 1);
+      }
+    }
+    try (ImageInputStream input = ImageIO.createImageInputStream(image)) {
+      ImageReader reader = input == null ? null : getImageReader(input);
+      if (reader == null) {
+        return RasterCodec.decode(ImageIO.read(image));
       }
+      try {
+        Rectangle source = new Rectangle(0, 0, reader.getWidth(0), reader.getHeight(0));
+        if (region != null) {
+          source = source.intersection(region);
+        }
+        if (source.isEmpty()) {
+          throw new IllegalArgumentException("region not present in the image.");
+        }
+        int width = (source.width + subsampling - 1) / subsampling;
+        int height = (source.height + subsampling - 1) / subsampling;
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        if (fitsInHeap(width, height)) {
+          if (region != null) {
+            param.setSourceRegion(source);
+          }
+          return RasterCodec.decode(reader.read(0, param));
+        }
 
-      return new SimpleImage(loadImage);
+        // Too large for the heap, so the image is decoded into an image stored outside of it.
+        if (reader.isImageTiled(0)) {
+          return readTiles(reader, source, subsampling, width, height);
+        }
+        param.setSourceRegion(source);
+        TiledImage decoded = readMapped(reader, param, width, height);
+        return decoded != null ? decoded : readStrips(reader, param, source, subsampling, width,
+                height);
+      } finally {
+        reader.dispose();
+      }
     } catch (IOException e) {
       e.printStackTrace();
     }
 
-    return new SimpleImage(new int[3][1][1]);
+    return new PackedImage(1, 1);
   }
 
+  /**
+   * Decodes the given region of a tiled image into an image stored outside of the heap, reading
+   * each tile the region needs once, one row of tiles at a time. Only every {@code
+   * subsampling}-th pixel of the region is kept in both directions, and the rows of tiles that hold
+   * none of the kept rows are not read.
+   *
+   * @param reader      the reader of the image
+   * @param source      the region of the image to be decoded
+   * @param subsampling the distance between decoded pixels
+   * @param width       the width of the decoded image
+   * @param height      the height of the decoded image
+   * @return the decoded image
+   * @throws IOException if the image cannot be read
+   */
+  private TiledImage readTiles(ImageReader reader, Rectangle source, int subsampling, int width,
+                               int height) throws IOException {
+    int tileWidth = reader.getTileWidth(0);
+    int tileHeight = reader.getTileHeight(0);
+    int gridX = reader.getTileGridXOffset(0);
+    int gridY = reader.getTileGridYOffset(0);
+    int firstTileColumn = Math.floorDiv(source.x - gridX, tileWidth);
+    int lastTileColumn = Math.floorDiv(source.x + source.width - 1 - gridX, tileWidth);
+    PackedImage[] tiles = new PackedImage[lastTileColumn - firstTileColumn + 1];
+    TiledImage decoded = new TiledImage(width, height);
+    int[] row = new int[width * 3];
+    int tileRow = Integer.MIN_VALUE;
+    for (int j = 0; j < height; j++) {
+      int y = source.y + j * subsampling;
+      if (Math.floorDiv(y - gridY, tileHeight) != tileRow) {
+        tileRow = Math.floorDiv(y - gridY, tileHeight);
+        for (int k = 0; k < tiles.length; k++) {
+          tiles[k] = RasterCodec.decode(reader.readTile(0, firstTileColumn + k, tileRow));
+        }
+      }
+      int top = gridY + tileRow * tileHeight;
+      for (int i = 0; i < width; i++) {
+        int x = source.x + i * subsampling;
+        int tileColumn = Math.floorDiv(x - gridX, tileWidth);
+        PackedImage tile = tiles[tileColumn - firstTileColumn];
+        int left = gridX + tileColumn * tileWidth;
+        for (int channel = 0; channel < 3; channel++) {
+          row[i * 3 + channel] = tile.getPixelValue(channel, x - left, y - top);
+        }
+      }
+      decoded.setRowRGB(j, row, 0);
+    }
+    return decoded;
+  }
+
+  /**
+   * Decodes an image into an image stored outside of the heap in a single pass. The reader writes
+   * the pixels into a raster whose elements are kept in a memory-mapped scratch file, in the layout
+   * the reader would have used for an image in the heap, and the raster is then converted. Returns
+   * null if the layout cannot be held in such a raster or the reader does not accept it.
+   *
+   * @param reader the reader of the image
+   * @param param  the parameters of the read, with the region and the subsampling set
+   * @param width  the width of the decoded image
+   * @param height the height of the decoded image
+   * @return the decoded image, or null if it cannot be decoded this way
+   * @throws IOException if the image cannot be read
+   */
+  private TiledImage readMapped(ImageReader reader, ImageReadParam param, int width, int height)
+          throws IOException {
+    Iterator<ImageTypeSpecifier> types = reader.getImageTypes(0);
+    if (!types.hasNext()) {
+      return null;
+    }
+    ImageTypeSpecifier type = types.next();
+    SampleModel sampleModel;
+    try {
+      sampleModel = type.getSampleModel(width, height);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+    long scanlineStride;
+    int banks = 1;
+    if (sampleModel instanceof ComponentSampleModel) {
+      scanlineStride = ((ComponentSampleModel) sampleModel).getScanlineStride();
+      for (int bank : ((ComponentSampleModel) sampleModel).getBankIndices()) {
+        banks = Math.max(banks, bank + 1);
+      }
+    } else if (sampleModel instanceof SinglePixelPackedSampleModel) {
+      scanlineStride = ((SinglePixelPackedSampleModel) sampleModel).getScanlineStride();
+    } else if (sampleModel instanceof MultiPixelPackedSampleModel) {
+      scanlineStride = ((MultiPixelPackedSampleModel) sampleModel).getScanlineStride();
+    } else {
+      return null;
+    }
+    long size = scanlineStride * height;
+    if (size > Integer.MAX_VALUE || !MappedDataBuffer.isSupported(sampleModel.getDataType())) {
+      return null;
+    }
+
+    DataBuffer buffer = new MappedDataBuffer(sampleModel.getDataType(), (int) size, banks);
+    WritableRaster raster = Raster.createWritableRaster(sampleModel, buffer, null);
+    ColorModel colorModel = type.getColorModel();
+    BufferedImage destination = new BufferedImage(colorModel, raster,
+            colorModel.isAlphaPremultiplied(), null);
+    param.setDestination(destination);
+    try {
+      reader.read(0, param);
+    } catch (IllegalArgumentException | ClassCastException e) {
+      // The reader does not accept the raster, or only writes to rasters backed by arrays.
+      return null;
+    } finally {
+      param.setDestination(null);
+    }
+    TiledImage decoded = new TiledImage(width, height);
+    RasterCodec.decode(destination, decoded, 0);
+    return decoded;
+  }
+
+  /**
+   * Decodes an image into an image stored outside of the heap one strip of tiles at a time, for
+   * the images that cannot be decoded in a single pass. A reader of a format that can only be
+   * decoded from its start, such as JPEG or PNG, decodes every row above a strip again to reach it,
+   * so the cost of this grows with the square of the height of the image.
+   *
+   * @param reader      the reader of the image
+   * @param param       the parameters of the read, with the subsampling set
+   * @param source      the region of the image to be decoded
+   * @param subsampling the distance between decoded pixels
+   * @param width       the width of the decoded image
+   * @param height      the height of the decoded image
+   * @return the decoded image
+   * @throws IOException if the image cannot be read
+   */
+  private TiledImage readStrips(ImageReader reader, ImageReadParam param, Rectangle source,
+                                int subsampling, int width, int height) throws IOException {
+    TiledImage decoded = new TiledImage(width, height);
+    int stripRows = decoded.getTileSize();
+    for (int row = 0; row < height; row += stripRows) {
+      int rows = Math.min(stripRows, height - row);
+      param.setSourceRegion(new Rectangle(source.x, source.y + row * subsampling,
+              source.width, (rows - 1) * subsampling + 1));
+      RasterCodec.decode(reader.read(0, param), decoded, row);
+    }
+    return decoded;
+  }
+
+  /**
+   * Returns the given region of the image, keeping only every {@code subsampling}-th pixel of it in
+   * both directions. The image itself is returned if the whole of it is kept.
+   *
+   * @param image       the image to be subsampled
+   * @param region      the region of the image to be kept, or null for the whole image
+   * @param subsampling the distance between kept pixels
+   * @return the subsampled image
+   * @throws IllegalArgumentException if the region does not intersect the image
+   */
+  private Image subsample(Image image, Rectangle region, int subsampling)
+          throws IllegalArgumentException {
+    Rectangle source = new Rectangle(0, 0, image.getWidth(), image.getHeight());
+    if (region != null) {
+      source = source.intersection(region);
+    }
+    if (source.isEmpty()) {
+      throw new IllegalArgumentException("region not present in the image.");
+    }
+    if (subsampling == 1 && source.width == image.getWidth()
+            && source.height == image.getHeight()) {
+      return image;
+    }
+    int width = (source.width + subsampling - 1) / subsampling;
+    int height = (source.height + subsampling - 1) / subsampling;
+    WritableImage subsampled = Images.createCompatible(image, width, height);
+    int[] sourceRow = new int[image.getWidth() * 3];
+    int[] row = new int[width * 3];
+    for (int j = 0; j < height; j++) {
+      image.getRowRGB(source.y + j * subsampling, sourceRow, 0);
+      for (int i = 0; i < width; i++) {
+        int column = source.x + i * subsampling;
+        row[i * 3] = sourceRow[column * 3];
+        row[i * 3 + 1] = sourceRow[column * 3 + 1];
+        row[i * 3 + 2] = sourceRow[column * 3 + 2];
+      }
+      subsampled.setRowRGB(j, row, 0);
+    }
+    return subsampled;
+  }
+
+  /**
+   * Returns whether an image of the given size can be held in the heap, leaving room for the
+   * results of the operations performed on it.
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @return true if the image should be held in the heap
+   */
+  private boolean fitsInHeap(int width, int height) {
+    long bytes = (long) width * height * 3;
+    return bytes <= Integer.MAX_VALUE - 8 && bytes <= Runtime.getRuntime().maxMemory() / 4;
+  }
+
+  /**
+   * Returns a reader for the image in the given stream set to read from it, or null if no reader
+   * can decode the image.
+   *
+   * @param input the stream holding the image
+   * @return the reader of the image
+   */
+  private ImageReader getImageReader(ImageInputStream input) {
+    Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+    if (!readers.hasNext()) {
+      return null;
+    }
+    ImageReader reader = readers.next();
+    reader.setInput(input, true, true);
+    return reader;
+  }
 
   /**
    * Given an object of image type, the path and format of the image, this method saves the image to
-   * specified path.
+   * specified path. Images saved in the raw format are written as they are stored, without
+   * encoding. An image too large to be held in the heap is encoded one strip of rows at a time as
+   * it is written, which only the PNG and BMP writers allow.
    *
    * @param image       the image to be saved
    * @param imageFormat the format of the image
    * @param path        the path where the image is to be saved
+   * @throws IllegalArgumentException if the image is too large to be saved in the given format
    */
-  protected void save(Image image, ImageFormats imageFormat, String path) {
-    int x = image.getWidth();
-    int y = image.getHeight();
-    BufferedImage outputImage = new BufferedImage(x, y, BufferedImage.TYPE_3BYTE_BGR);
-
-    for (int i = 0; i < x; i++) {
-      for (int j = 0; j < y; j++) {
-        int red = image.getPixelValue(0, i, j);
-        int green = image.getPixelValue(1, i, j);
-        int blue = image.getPixelValue(2, i, j);
-        int rgb = ((0x0ff) << 24) | ((red & 0x0ff) << 16) | ((green & 0x0ff) << 8) | (blue & 0x0ff);
-        outputImage.setRGB(i, j, rgb);
-      }
-    }
-
+  protected void save(Image image, ImageFormats imageFormat, String path)
+          throws IllegalArgumentException {
     File outputFile = new File(path);
     try {
-      ImageIO.write(outputImage, imageFormat.toString(), outputFile);
+      if (imageFormat == ImageFormats.raw) {
+        RawImageFile.write(image, outputFile);
+      } else if (fitsInHeap(image.getWidth(), image.getHeight())) {
+        ImageIO.write(RasterCodec.encode(image, null), imageFormat.toString(), outputFile);
+      } else if (imageFormat == ImageFormats.png || imageFormat == ImageFormats.bmp) {
+        ImageIO.write(RasterCodec.encodeInStrips(image), imageFormat.toString(), outputFile);
+      } else {
+        throw new IllegalArgumentException("image is too large to be saved as " + imageFormat
+                + ", save it as png, bmp or raw.");
+      }
     } catch (IOException e) {
       e.printStackTrace();
     }
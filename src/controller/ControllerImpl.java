@@ -1,21 +1,40 @@
 package controller;
 
+import java.awt.Rectangle;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.HashMap;
 import java.util.InputMismatchException;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
+import model.CachingImageModel;
 import model.EnhancedImageModel;
+import model.ImageFormats;
+import model.LazyImageModel;
+import model.image.Image;
+import model.tranformations.Transform;
 
 /**
  * This class implements the Controller interface. It takes the input from the user processes and
  * commands the model what in order to process a input. Also performs I/O  operations by loading and
- * saving the images.
+ * saving the images. Consecutive colour transformations in the input are applied together in a
+ * single pass over the image. {@code load-region: <x> <y> <width> <height> <path>} loads only the
+ * given region of an image, without decoding the rest of it.
+ *
+ * <p>With a {@link LazyImageModel}, on its own or wrapped in a {@link CachingImageModel}, the
+ * images are saved in the background, so the script goes on while they are computed and written.
+ * A file being saved is waited for before it is loaded, and every save is waited for before the
+ * script ends.</p>
  */
 public class ControllerImpl extends AbstractController implements Controller {
 
   private Readable in;
+  private final Map<File, CompletableFuture<Void>> pendingSaves;
 
   /**
    * Takes an Readable object and an EnhancedImageModel object to setup the controller in order to
@@ -27,6 +46,7 @@ public class ControllerImpl extends AbstractController implements Controller {
   public ControllerImpl(Readable in, EnhancedImageModel model) {
     super(model);
     this.in = in;
+    this.pendingSaves = new HashMap<>();
   }
 
   /**
@@ -47,20 +67,34 @@ public class ControllerImpl extends AbstractController implements Controller {
       String input = scanner.next();
       switch (input) {
         case "q":
+          finishSaves();
           return;
         case "load:":
-          File imageFile = new File(scanner.next());
-          if (imageFile.exists()) {
-            this.model = this.model.fromImage(load(imageFile));
-          } else {
-            throw new FileNotFoundException("File does not exist");
-          }
+          loadImage(new File(scanner.next()), null);
+          break;
+        case "load-region:":
+          Rectangle region = new Rectangle(scanner.nextInt(), scanner.nextInt(), scanner.nextInt(),
+                  scanner.nextInt());
+          loadImage(new File(scanner.next()), region);
           break;
         case "save:":
           String path = scanner.next();
-          this.save(this.model.getModelImage(), getImageFormat(path), path);
+          applyQueuedTransforms();
+          EnhancedImageModel performing = this.model instanceof CachingImageModel
+                  ? ((CachingImageModel) this.model).getDelegate() : this.model;
+          if (performing instanceof LazyImageModel) {
+            saveInBackground((LazyImageModel) performing, getImageFormat(path), path);
+          } else {
+            this.save(this.model.getModelImage(), getImageFormat(path), path);
+          }
           break;
         default:
+          Supplier<Transform> getTransform = knownTransforms.get(input);
+          if (getTransform != null) {
+            queueTransform(getTransform.get());
+            break;
+          }
+          applyQueuedTransforms();
           Function<Scanner, EnhancedImageModel> getCommand = knownCommands.getOrDefault(
                   input, null);
           if (getCommand == null) {
@@ -71,7 +105,87 @@ public class ControllerImpl extends AbstractController implements Controller {
           break;
       }
     }
+    finishSaves();
+  }
+
+  /**
+   * Loads the given image file, or only a region of it, as the image of the model, once the image
+   * being saved to the file, if any, is written. The transformations waiting to be applied to the
+   * image loaded before are dropped.
+   *
+   * @param imageFile the image file to be loaded
+   * @param region    the region of the image to be loaded, or null for the whole image
+   * @throws FileNotFoundException    if the file does not exist
+   * @throws IllegalArgumentException if the region does not intersect the image
+   */
+  private void loadImage(File imageFile, Rectangle region)
+          throws FileNotFoundException, IllegalArgumentException {
+    finishSave(imageFile);
+    if (!imageFile.exists()) {
+      throw new FileNotFoundException("File does not exist");
+    }
+    discardQueuedTransforms();
+    this.model = this.model.fromImage(load(imageFile, region, 1));
+  }
+
+  /**
+   * Starts computing the image of the model and saves it once it is computed, without waiting for
+   * either. A file is written after every save to it that was started before.
+   *
+   * @param model       the model whose image is to be saved
+   * @param imageFormat the format the image is to be saved in
+   * @param path        the path of the file the image is to be saved to
+   */
+  private void saveInBackground(LazyImageModel model, ImageFormats imageFormat, String path) {
+    File file = new File(path).getAbsoluteFile();
+    CompletableFuture<Void> previous = this.pendingSaves.getOrDefault(file,
+            CompletableFuture.completedFuture(null));
+    CompletableFuture<Image> image = model.evaluate();
+    this.pendingSaves.put(file, image.thenCombine(previous, (computed, saved) -> computed)
+            .thenAccept(computed -> this.save(computed, imageFormat, path)));
+  }
 
+  /**
+   * Waits for the image being saved to the given file, if any, to be written.
+   *
+   * @param file the file
+   */
+  private void finishSave(File file) {
+    CompletableFuture<Void> save = this.pendingSaves.remove(file.getAbsoluteFile());
+    if (save != null) {
+      join(save);
+    }
+  }
+
+  /**
+   * Waits for every image being saved to be written.
+   */
+  private void finishSaves() {
+    try {
+      for (CompletableFuture<Void> save : this.pendingSaves.values()) {
+        join(save);
+      }
+    } finally {
+      this.pendingSaves.clear();
+    }
+  }
+
+  /**
+   * Waits for a save to finish, throwing the exception it failed with if it did.
+   *
+   * @param save the save
+   */
+  private static void join(CompletableFuture<Void> save) {
+    try {
+      save.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      } else if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw e;
+    }
   }
 
 }
@@ -0,0 +1,235 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import model.EnhancedImageModel;
+import model.image.Image;
+import model.image.Images;
+
+/**
+ * <p>Keeps the states an image went through while it was edited, so the edits can be undone and
+ * redone. Every state after the first is recorded as the command that produced it from the state
+ * before, and some states also keep their model as a checkpoint. A state without a checkpoint is
+ * computed again by performing the commands from the closest earlier checkpoint.</p>
+ *
+ * <p>The checkpoints are kept within a budget of bytes, counting what their images take in the
+ * heap, so images stored outside of it cost nothing. When they take more, the checkpoints
+ * farthest from the current state are dropped first. The first state, the current state and the
+ * states right before and after it are always kept, so undoing or redoing a single edit does not
+ * compute anything.</p>
+ */
+class EditHistory {
+
+  private final long budget;
+  private final List<Entry> entries;
+  private int current;
+  private long checkpointBytes;
+
+  /**
+   * A state of the image: the command that produced it and, if it is kept, its model.
+   */
+  private static final class Entry {
+    private final String[] command;
+    private EnhancedImageModel checkpoint;
+    private long bytes;
+
+    private Entry(String[] command) {
+      this.command = command;
+    }
+  }
+
+  /**
+   * Creates an empty history whose checkpoints take at most about the given number of bytes,
+   * apart from the ones that are always kept.
+   *
+   * @param budget the number of bytes the checkpoints may take
+   * @throws IllegalArgumentException if the budget is negative
+   */
+  EditHistory(long budget) throws IllegalArgumentException {
+    if (budget < 0) {
+      throw new IllegalArgumentException("budget cannot be negative.");
+    }
+    this.budget = budget;
+    this.entries = new ArrayList<>();
+    this.current = -1;
+  }
+
+  /**
+   * Forgets every state and starts again from the given one, which cannot be undone.
+   *
+   * @param model the model of the first state
+   * @param image the image of the model
+   */
+  void reset(EnhancedImageModel model, Image image) {
+    this.entries.clear();
+    this.checkpointBytes = 0;
+    Entry first = new Entry(null);
+    this.entries.add(first);
+    this.current = 0;
+    keep(first, model, image);
+  }
+
+  /**
+   * Records a state produced from the current state by a command and makes it the current state.
+   * The states that could be redone are forgotten. If there is no state yet, the state becomes the
+   * first state.
+   *
+   * @param commandFormat the command that produced the state
+   * @param inputs        the inputs of the command
+   * @param model         the model of the state
+   * @param image         the image of the model
+   */
+  void record(String commandFormat, String inputs, EnhancedImageModel model, Image image) {
+    if (this.current < 0) {
+      reset(model, image);
+      return;
+    }
+    while (this.entries.size() > this.current + 1) {
+      drop(this.entries.remove(this.entries.size() - 1));
+    }
+    Entry entry = new Entry(new String[]{commandFormat, inputs});
+    this.entries.add(entry);
+    this.current++;
+    keep(entry, model, image);
+    evict();
+  }
+
+  /**
+   * Tells whether there is a state before the current state.
+   *
+   * @return true if an edit can be undone
+   */
+  boolean canUndo() {
+    return this.current > 0;
+  }
+
+  /**
+   * Tells whether there is a state after the current state.
+   *
+   * @return true if an edit can be redone
+   */
+  boolean canRedo() {
+    return this.current + 1 < this.entries.size();
+  }
+
+  /**
+   * Makes the state before the current state the current state and returns its model.
+   *
+   * @param replay performs a command on a model and returns the resulting model
+   * @return the model of the state before
+   * @throws IllegalStateException if there is no state before the current state
+   */
+  EnhancedImageModel undo(BiFunction<EnhancedImageModel, String[], EnhancedImageModel> replay)
+          throws IllegalStateException {
+    if (!canUndo()) {
+      throw new IllegalStateException("nothing to undo.");
+    }
+    return moveTo(this.current - 1, replay);
+  }
+
+  /**
+   * Makes the state after the current state the current state and returns its model.
+   *
+   * @param replay performs a command on a model and returns the resulting model
+   * @return the model of the state after
+   * @throws IllegalStateException if there is no state after the current state
+   */
+  EnhancedImageModel redo(BiFunction<EnhancedImageModel, String[], EnhancedImageModel> replay)
+          throws IllegalStateException {
+    if (!canRedo()) {
+      throw new IllegalStateException("nothing to redo.");
+    }
+    return moveTo(this.current + 1, replay);
+  }
+
+  /**
+   * Returns the commands that produced the current state from the first state, in order.
+   *
+   * @return the commands, each made of the command and its inputs
+   */
+  List<String[]> getCommands() {
+    List<String[]> commands = new ArrayList<>();
+    for (int i = 1; i <= this.current; i++) {
+      commands.add(this.entries.get(i).command);
+    }
+    return commands;
+  }
+
+  /**
+   * Makes the given state the current state, computing its model from the closest earlier
+   * checkpoint if it was not kept. The state before it is kept as well when it is computed on the
+   * way. If performing a command fails, the current state is left as it was.
+   *
+   * @param index  the index of the state
+   * @param replay performs a command on a model and returns the resulting model
+   * @return the model of the state
+   */
+  private EnhancedImageModel moveTo(int index,
+                                    BiFunction<EnhancedImageModel, String[], EnhancedImageModel>
+                                            replay) {
+    int start = index;
+    while (this.entries.get(start).checkpoint == null) {
+      start--;
+    }
+    EnhancedImageModel model = this.entries.get(start).checkpoint;
+    for (int i = start + 1; i <= index; i++) {
+      model = replay.apply(model, this.entries.get(i).command);
+      if (i >= index - 1) {
+        keep(this.entries.get(i), model, model.getModelImage());
+      }
+    }
+    this.current = index;
+    evict();
+    return model;
+  }
+
+  /**
+   * Keeps the model of a state as its checkpoint, counting only the bytes its image takes in the
+   * heap.
+   *
+   * @param entry the state
+   * @param model the model of the state
+   * @param image the image of the model
+   */
+  private void keep(Entry entry, EnhancedImageModel model, Image image) {
+    drop(entry);
+    entry.checkpoint = model;
+    entry.bytes = Images.heapBytes(image);
+    this.checkpointBytes += entry.bytes;
+  }
+
+  /**
+   * Drops the checkpoint of a state, if it has one.
+   *
+   * @param entry the state
+   */
+  private void drop(Entry entry) {
+    this.checkpointBytes -= entry.bytes;
+    entry.checkpoint = null;
+    entry.bytes = 0;
+  }
+
+  /**
+   * Drops the checkpoints farthest from the current state until the checkpoints fit in the
+   * budget or only the ones always kept are left.
+   */
+  private void evict() {
+    while (this.checkpointBytes > this.budget) {
+      int farthest = -1;
+      int farthestDistance = 1;
+      for (int i = 1; i < this.entries.size(); i++) {
+        int distance = Math.abs(i - this.current);
+        if (distance > farthestDistance && this.entries.get(i).checkpoint != null) {
+          farthest = i;
+          farthestDistance = distance;
+        }
+      }
+      if (farthest < 0) {
+        return;
+      }
+      drop(this.entries.get(farthest));
+    }
+  }
+}
@@ -4,20 +4,30 @@ import java.awt.Image;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.NoSuchElementException;
+import java.util.Random;
 import java.util.Scanner;
 import java.util.function.Function;
 
 import model.EnhancedImageModel;
+import model.ImageFormats;
 import view.ImageView;
 import view.Features;
 
 /**
  * This class extends the AbstractController and implements the Features interface. It represents
- * the controller for the interactive GUI version of the program.
+ * the controller for the interactive GUI version of the program. The edits made on an image can be
+ * undone and redone; the images they went through are kept within a budget of memory and the rest
+ * are computed again when they are needed.
  */
 public class InteractiveController extends AbstractController implements Features {
 
+  private static final long PREVIEW_PIXELS = 1L << 22;
+
   private ImageView view;
+  private BufferedImage displayImage;
+  private File fullImageFile;
+  private final EditHistory history;
+  private final Random random;
 
   /**
    * Initializes the controller by taking the instance of {@link ImageView} and model {@link
@@ -27,8 +37,25 @@ public class InteractiveController extends AbstractController implements Feature
    * @param model any implementation of the {@link EnhancedImageModel}
    */
   public InteractiveController(ImageView view, EnhancedImageModel model) {
+    this(view, model, Runtime.getRuntime().maxMemory() / 4);
+  }
+
+  /**
+   * Initializes the controller by taking the instance of {@link ImageView}, model {@link
+   * EnhancedImageModel} and the number of bytes the images kept to undo and redo edits may take.
+   * The image being shown and the ones right before and after it are kept even if they take more.
+   *
+   * @param view          any implementation of the {@link ImageView}
+   * @param model         any implementation of the {@link EnhancedImageModel}
+   * @param historyBudget the number of bytes the images kept to undo and redo edits may take
+   * @throws IllegalArgumentException if the budget is negative
+   */
+  public InteractiveController(ImageView view, EnhancedImageModel model, long historyBudget)
+          throws IllegalArgumentException {
     super(model);
     this.view = view;
+    this.history = new EditHistory(historyBudget);
+    this.random = new Random();
   }
 
   @Override
@@ -36,11 +63,28 @@ public class InteractiveController extends AbstractController implements Feature
     view.setFeatures(this);
   }
 
+  /**
+   * Loads the image at the given path. Images with more than {@code PREVIEW_PIXELS} pixels are
+   * loaded as a subsampled preview that fits in that many pixels, on which the operations are
+   * shown; the operations are then applied again on the full image when it is saved.
+   *
+   * @param path the path of the image to be loaded
+   */
   @Override
   public void loadImage(String path) {
     try {
-      this.model = this.model.fromImage(this.load(new File(path)));
-      view.showImage(convertToImage(this.model.getModelImage()));
+      File imageFile = new File(path);
+      int subsampling = this.getSubsampling(imageFile, PREVIEW_PIXELS);
+      if (subsampling > 1) {
+        this.fullImageFile = imageFile;
+        this.model = this.model.fromImage(this.load(imageFile, null, subsampling));
+      } else {
+        this.fullImageFile = null;
+        this.model = this.model.fromImage(this.load(imageFile));
+      }
+      model.image.Image image = this.model.getModelImage();
+      this.history.reset(this.model, image);
+      view.showImage(convertToImage(image));
     } catch (NullPointerException e) {
       view.showError("Could not load the specified image. '" + e.getMessage() + "'");
     } catch (OutOfMemoryError e) {
@@ -48,29 +92,81 @@ public class InteractiveController extends AbstractController implements Feature
     }
   }
 
+  /**
+   * Saves the current image at the given path. If a preview of a large image is being shown, the
+   * full image is loaded and the operations performed on the preview are applied to it, and the
+   * result is saved instead of the preview.
+   *
+   * @param path the path where the image is to be saved
+   */
   @Override
   public void saveImage(String path) {
+    ImageFormats imageFormat;
     try {
-      this.save(this.model.getModelImage(), this.getImageFormat(path), path);
+      imageFormat = this.getImageFormat(path);
     } catch (IllegalArgumentException e) {
       view.showError("File extension not supported. ");
+      return;
+    }
+    try {
+      if (!this.isPreview()) {
+        this.save(this.model.getModelImage(), imageFormat, path);
+      } else {
+        this.save(this.replayOnFullImage(), imageFormat, path);
+      }
+    } catch (IllegalArgumentException e) {
+      view.showError("Could not save the image: " + e.getMessage());
     } catch (IllegalStateException e) {
       view.showError("Invalid image to save. No image to save.");
+    } catch (OutOfMemoryError e) {
+      view.showError("This image is out of this program scope. Image to large to save.");
     }
 
   }
 
   @Override
   public void performImageOperation(String operation, String[] inputs) {
-    Scanner command = new Scanner(String.join(" ", inputs));
-    executeCommand(command, operation);
+    executeCommand(String.join(" ", inputs), operation);
   }
 
   @Override
   public void generatePattern(String pattern, String[] inputs) {
-    Scanner command = new Scanner(String.join(" ", inputs));
     String patternCommandFormat = "Generate," + pattern.replaceAll("\\s", ",");
-    executeCommand(command, patternCommandFormat);
+    executeCommand(String.join(" ", inputs), patternCommandFormat);
+  }
+
+  @Override
+  public void undo() {
+    if (!this.history.canUndo()) {
+      view.showError("Nothing to undo.");
+      return;
+    }
+    try {
+      EnhancedImageModel undone = this.history.undo(this::replay);
+      this.model = undone;
+      view.showImage(convertToImage(undone.getModelImage()));
+    } catch (RuntimeException e) {
+      view.showError("Could not undo the edit: " + e.getMessage());
+    } catch (OutOfMemoryError e) {
+      view.showError("This image is out of this program scope. Image to large to render.");
+    }
+  }
+
+  @Override
+  public void redo() {
+    if (!this.history.canRedo()) {
+      view.showError("Nothing to redo.");
+      return;
+    }
+    try {
+      EnhancedImageModel redone = this.history.redo(this::replay);
+      this.model = redone;
+      view.showImage(convertToImage(redone.getModelImage()));
+    } catch (RuntimeException e) {
+      view.showError("Could not redo the edit: " + e.getMessage());
+    } catch (OutOfMemoryError e) {
+      view.showError("This image is out of this program scope. Image to large to render.");
+    }
   }
 
   @Override
@@ -79,21 +175,29 @@ public class InteractiveController extends AbstractController implements Feature
   }
 
   /**
-   * Executes the command given in the commandFormat argument using the scanner object that contains
-   * the input for that command.
+   * Executes the command given in the commandFormat argument with the given inputs and records it
+   * in the history, so it can be undone and, while a preview is shown, applied to the full image
+   * later. A mosaic is given a random seed which is recorded with it, so it places the same seeds
+   * when it is performed again.
    *
    * @param inputs        the inputs for the command
    * @param commandFormat the command to execute
    */
-  private void executeCommand(Scanner inputs, String commandFormat) {
+  private void executeCommand(String inputs, String commandFormat) {
     Function<Scanner, EnhancedImageModel> cmdToExecute = this.knownCommands.getOrDefault(
             commandFormat, null);
     if (cmdToExecute == null) {
       view.showError("command not defined");
     } else {
+      if (commandFormat.equals("mosaic")) {
+        inputs = inputs + " " + this.random.nextLong();
+      }
       try {
-        this.model = cmdToExecute.apply(inputs);
-        view.showImage(convertToImage(this.model.getModelImage()));
+        EnhancedImageModel result = cmdToExecute.apply(new Scanner(inputs));
+        model.image.Image image = result.getModelImage();
+        this.model = result;
+        this.history.record(commandFormat, inputs, this.model, image);
+        view.showImage(convertToImage(image));
       } catch (IllegalArgumentException e) {
         view.showError(e.getMessage());
       } catch (NoSuchElementException e) {
@@ -105,26 +209,65 @@ public class InteractiveController extends AbstractController implements Feature
   }
 
   /**
-   * Converts the instance of {@link model.image.Image} to an {@link Image} instance.
+   * Performs a recorded command on the given model. The commands are performed on the model of
+   * the controller, so it is the given model while the command is performed and is set back
+   * afterwards, whether the command succeeds or not.
    *
-   * @param image an instance of {@link model.image.Image}
-   * @return an instance of {@link Image}
+   * @param model   the model the command is performed on
+   * @param command the command and its inputs
+   * @return the resulting model
    */
-  private Image convertToImage(model.image.Image image) {
-    int x = image.getWidth();
-    int y = image.getHeight();
-    BufferedImage outputImage = new BufferedImage(x, y, BufferedImage.TYPE_3BYTE_BGR);
-
-    for (int i = 0; i < x; i++) {
-      for (int j = 0; j < y; j++) {
-        int red = image.getPixelValue(0, i, j);
-        int green = image.getPixelValue(1, i, j);
-        int blue = image.getPixelValue(2, i, j);
-        int rgb = ((0x0ff) << 24) | ((red & 0x0ff) << 16) | ((green & 0x0ff) << 8) | (blue & 0x0ff);
-        outputImage.setRGB(i, j, rgb);
+  private EnhancedImageModel replay(EnhancedImageModel model, String[] command) {
+    EnhancedImageModel current = this.model;
+    this.model = model;
+    try {
+      return this.knownCommands.get(command[0]).apply(new Scanner(command[1]));
+    } finally {
+      this.model = current;
+    }
+  }
+
+  /**
+   * Tells whether the image shown is a preview of a large image, that is whether a large image
+   * was loaded and no pattern was generated since.
+   *
+   * @return true if the image shown is a preview
+   */
+  private boolean isPreview() {
+    if (this.fullImageFile == null) {
+      return false;
+    }
+    for (String[] command : this.history.getCommands()) {
+      if (command[0].startsWith("Generate,")) {
+        return false;
       }
     }
+    return true;
+  }
+
+  /**
+   * Loads the full image of the preview being shown and applies to it every command that was
+   * performed on the preview, in order. The preview itself is left as it is.
+   *
+   * @return the full image with the commands applied
+   */
+  private model.image.Image replayOnFullImage() {
+    EnhancedImageModel full = this.model.fromImage(this.load(this.fullImageFile));
+    for (String[] command : this.history.getCommands()) {
+      full = this.replay(full, command);
+    }
+    return full.getModelImage();
+  }
 
-    return outputImage;
+  /**
+   * Converts the instance of {@link model.image.Image} to an {@link Image} instance. The image
+   * shown before is written over when it has the same size, instead of creating a new one.
+   *
+   * @param image an instance of {@link model.image.Image}
+   * @return an instance of {@link Image}
+   */
+  private Image convertToImage(model.image.Image image) {
+    this.displayImage = RasterCodec.encode(image, this.displayImage);
+    return this.displayImage;
   }
 }
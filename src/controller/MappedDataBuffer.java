@@ -0,0 +1,109 @@
+package controller;
+
+import java.awt.image.DataBuffer;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * <p>A data buffer of bytes, shorts or ints that stores its elements outside of the heap, in a
+ * scratch file that is mapped into memory. A raster built on it can receive an image too large for
+ * the heap from an image reader in a single pass.</p>
+ *
+ * <p>The file is mapped in chunks, which keeps every mapping below the size limit of a single
+ * buffer. Elements are read and written one at a time through the methods of {@link DataBuffer},
+ * so a raster on this buffer is slower than one backed by an array.</p>
+ */
+final class MappedDataBuffer extends DataBuffer {
+
+  private static final int CHUNK_SHIFT = 30;
+  private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+  private final int elementShift;
+  private final MappedByteBuffer[] chunks;
+
+  /**
+   * <p>Creates a buffer of zeroes with the given number of banks of the given size.</p>
+   *
+   * @param dataType the type of the elements, {@code TYPE_BYTE}, {@code TYPE_USHORT} or
+   *                 {@code TYPE_INT}
+   * @param size     the number of elements in each bank
+   * @param numBanks the number of banks
+   * @throws IllegalArgumentException if the type is not supported
+   * @throws IllegalStateException    if the scratch file cannot be created
+   */
+  MappedDataBuffer(int dataType, int size, int numBanks) throws IllegalArgumentException,
+          IllegalStateException {
+    super(dataType, size, numBanks);
+    if (!isSupported(dataType)) {
+      throw new IllegalArgumentException("unsupported data type.");
+    }
+    this.elementShift = Integer.numberOfTrailingZeros(getDataTypeSize(dataType) / 8);
+    long bytes = Math.max(1, ((long) size * numBanks) << this.elementShift);
+    this.chunks = new MappedByteBuffer[(int) ((bytes + CHUNK_MASK) >> CHUNK_SHIFT)];
+    try {
+      File scratch = File.createTempFile("mapped-raster", ".tmp");
+      try (RandomAccessFile file = new RandomAccessFile(scratch, "rw")) {
+        file.setLength(bytes);
+        FileChannel channel = file.getChannel();
+        for (int i = 0; i < this.chunks.length; i++) {
+          long position = (long) i << CHUNK_SHIFT;
+          this.chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, position,
+                  Math.min(1L << CHUNK_SHIFT, bytes - position));
+        }
+      } finally {
+        // The mappings stay valid once the file is gone.
+        if (!scratch.delete()) {
+          scratch.deleteOnExit();
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("could not create the scratch file of the raster.", e);
+    }
+  }
+
+  /**
+   * <p>Tells whether elements of the given type can be stored in this buffer.</p>
+   *
+   * @param dataType the type of the elements
+   * @return true if the type is {@code TYPE_BYTE}, {@code TYPE_USHORT} or {@code TYPE_INT}
+   */
+  static boolean isSupported(int dataType) {
+    return dataType == TYPE_BYTE || dataType == TYPE_USHORT || dataType == TYPE_INT;
+  }
+
+  @Override
+  public int getElem(int bank, int i) {
+    long position = ((long) bank * this.size + i) << this.elementShift;
+    MappedByteBuffer chunk = this.chunks[(int) (position >> CHUNK_SHIFT)];
+    int index = (int) (position & CHUNK_MASK);
+    switch (this.dataType) {
+      case TYPE_BYTE:
+        return chunk.get(index) & 0xFF;
+      case TYPE_USHORT:
+        return chunk.getShort(index) & 0xFFFF;
+      default:
+        return chunk.getInt(index);
+    }
+  }
+
+  @Override
+  public void setElem(int bank, int i, int val) {
+    long position = ((long) bank * this.size + i) << this.elementShift;
+    MappedByteBuffer chunk = this.chunks[(int) (position >> CHUNK_SHIFT)];
+    int index = (int) (position & CHUNK_MASK);
+    switch (this.dataType) {
+      case TYPE_BYTE:
+        chunk.put(index, (byte) val);
+        break;
+      case TYPE_USHORT:
+        chunk.putShort(index, (short) val);
+        break;
+      default:
+        chunk.putInt(index, val);
+        break;
+    }
+  }
+}
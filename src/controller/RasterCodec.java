@@ -0,0 +1,458 @@
+package controller;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Vector;
+
+import model.image.Image;
+import model.image.PackedImage;
+import model.image.RunLengthEncoded;
+import model.image.WritableImage;
+import model.parallel.RowBands;
+
+/**
+ * <p>Converts between {@link BufferedImage}s and the images of the model by reading and writing
+ * their rasters directly. The common raster layouts loaded by ImageIO are copied in bulk, row by
+ * row, from the arrays backing the raster, which gives the same values as converting each pixel
+ * through the color model with {@code getRGB} without the cost of doing so. Any other layout falls
+ * back to {@code getRGB}.</p>
+ *
+ * <p>Images are encoded into a {@code TYPE_3BYTE_BGR} image by writing the bytes of its raster,
+ * with the rows of large images written in parallel. An image too large to be held in the heap
+ * as a buffered image can instead be encoded one strip at a time, when an image writer asks for
+ * it.</p>
+ */
+final class RasterCodec {
+
+  private static final int STRIP_BYTES = 1 << 20;
+  private static final int[] BGR_OFFSETS = {2, 1, 0};
+
+  private RasterCodec() {
+  }
+
+  /**
+   * <p>Decodes the given buffered image into a new image of the model.</p>
+   *
+   * @param image the buffered image to be decoded
+   * @return the decoded image
+   */
+  static PackedImage decode(BufferedImage image) {
+    PackedImage decoded = new PackedImage(image.getWidth(), image.getHeight());
+    decode(image, decoded, 0);
+    return decoded;
+  }
+
+  /**
+   * <p>Decodes the given buffered image into the rows of an image of the model starting at the
+   * given row, so that a large image can be decoded one strip at a time. The image of the model
+   * must be as wide as the buffered image.</p>
+   *
+   * @param image    the buffered image to be decoded
+   * @param decoded  the image to hold the pixels
+   * @param firstRow the row of the image of the model that receives the first row
+   */
+  static void decode(BufferedImage image, WritableImage decoded, int firstRow) {
+    Raster raster = image.getRaster();
+    SampleModel sampleModel = raster.getSampleModel();
+    ColorModel colorModel = image.getColorModel();
+    boolean untranslated = raster.getSampleModelTranslateX() == 0
+            && raster.getSampleModelTranslateY() == 0;
+
+    switch (image.getType()) {
+      case BufferedImage.TYPE_3BYTE_BGR:
+      case BufferedImage.TYPE_4BYTE_ABGR:
+        if (untranslated && colorModel.getColorSpace().isCS_sRGB()
+                && raster.getDataBuffer() instanceof DataBufferByte
+                && sampleModel instanceof ComponentSampleModel) {
+          decodeInterleavedBytes(raster, decoded, firstRow);
+          return;
+        }
+        break;
+      case BufferedImage.TYPE_BYTE_GRAY:
+        if (untranslated && raster.getDataBuffer() instanceof DataBufferByte
+                && sampleModel instanceof ComponentSampleModel) {
+          decodeGreyBytes(raster, colorModel, decoded, firstRow);
+          return;
+        }
+        break;
+      case BufferedImage.TYPE_INT_RGB:
+      case BufferedImage.TYPE_INT_ARGB:
+        if (untranslated && colorModel.getColorSpace().isCS_sRGB()
+                && raster.getDataBuffer() instanceof DataBufferInt
+                && sampleModel instanceof SinglePixelPackedSampleModel) {
+          decodePackedInts(raster, decoded, firstRow);
+          return;
+        }
+        break;
+      default:
+        break;
+    }
+    decodeWithColorModel(image, decoded, firstRow);
+  }
+
+  /**
+   * <p>Copies the red, green and blue bytes of every pixel of an interleaved byte raster, such as
+   * that of {@code TYPE_3BYTE_BGR} and {@code TYPE_4BYTE_ABGR} images.</p>
+   *
+   * @param raster   the raster to be copied
+   * @param decoded  the image to hold the pixels
+   * @param firstRow the row of the image that receives the first row of the raster
+   */
+  private static void decodeInterleavedBytes(Raster raster, WritableImage decoded,
+                                             int firstRow) {
+    ComponentSampleModel sampleModel = (ComponentSampleModel) raster.getSampleModel();
+    DataBufferByte dataBuffer = (DataBufferByte) raster.getDataBuffer();
+    byte[] data = dataBuffer.getData(sampleModel.getBankIndices()[0]);
+    int[] bandOffsets = sampleModel.getBandOffsets();
+    int pixelStride = sampleModel.getPixelStride();
+    int scanlineStride = sampleModel.getScanlineStride();
+    int width = decoded.getWidth();
+    int[] rowValues = new int[width * 3];
+    for (int j = 0; j < raster.getHeight(); j++) {
+      int start = dataBuffer.getOffset() + j * scanlineStride;
+      int red = start + bandOffsets[0];
+      int green = start + bandOffsets[1];
+      int blue = start + bandOffsets[2];
+      for (int i = 0; i < width; i++) {
+        int pixel = i * pixelStride;
+        rowValues[i * 3] = data[red + pixel] & 0xFF;
+        rowValues[i * 3 + 1] = data[green + pixel] & 0xFF;
+        rowValues[i * 3 + 2] = data[blue + pixel] & 0xFF;
+      }
+      decoded.setRowRGB(firstRow + j, rowValues, 0);
+    }
+  }
+
+  /**
+   * <p>Copies every pixel of a {@code TYPE_BYTE_GRAY} raster. The grey values are stored in a
+   * linear color space, so each of the 256 possible values is converted through the color model
+   * once and the pixels are then converted by looking up their value.</p>
+   *
+   * @param raster     the raster to be copied
+   * @param colorModel the color model of the image
+   * @param decoded    the image to hold the pixels
+   * @param firstRow   the row of the image that receives the first row of the raster
+   */
+  private static void decodeGreyBytes(Raster raster, ColorModel colorModel,
+                                      WritableImage decoded, int firstRow) {
+    ComponentSampleModel sampleModel = (ComponentSampleModel) raster.getSampleModel();
+    DataBufferByte dataBuffer = (DataBufferByte) raster.getDataBuffer();
+    byte[] data = dataBuffer.getData(sampleModel.getBankIndices()[0]);
+    int offset = dataBuffer.getOffset() + sampleModel.getBandOffsets()[0];
+    int pixelStride = sampleModel.getPixelStride();
+    int scanlineStride = sampleModel.getScanlineStride();
+    int[] colors = new int[256];
+    byte[] element = new byte[1];
+    for (int value = 0; value < 256; value++) {
+      element[0] = (byte) value;
+      colors[value] = colorModel.getRGB(element);
+    }
+    int width = decoded.getWidth();
+    int[] rowValues = new int[width * 3];
+    for (int j = 0; j < raster.getHeight(); j++) {
+      int start = offset + j * scanlineStride;
+      for (int i = 0; i < width; i++) {
+        int clr = colors[data[start + i * pixelStride] & 0xFF];
+        rowValues[i * 3] = (clr >> 16) & 0xFF;
+        rowValues[i * 3 + 1] = (clr >> 8) & 0xFF;
+        rowValues[i * 3 + 2] = clr & 0xFF;
+      }
+      decoded.setRowRGB(firstRow + j, rowValues, 0);
+    }
+  }
+
+  /**
+   * <p>Copies every pixel of a raster of pixels packed into ints, such as that of
+   * {@code TYPE_INT_RGB} and {@code TYPE_INT_ARGB} images.</p>
+   *
+   * @param raster   the raster to be copied
+   * @param decoded  the image to hold the pixels
+   * @param firstRow the row of the image that receives the first row of the raster
+   */
+  private static void decodePackedInts(Raster raster, WritableImage decoded, int firstRow) {
+    SinglePixelPackedSampleModel sampleModel =
+            (SinglePixelPackedSampleModel) raster.getSampleModel();
+    DataBufferInt dataBuffer = (DataBufferInt) raster.getDataBuffer();
+    int[] data = dataBuffer.getData();
+    int scanlineStride = sampleModel.getScanlineStride();
+    int width = decoded.getWidth();
+    int[] rowValues = new int[width * 3];
+    for (int j = 0; j < raster.getHeight(); j++) {
+      int start = dataBuffer.getOffset() + j * scanlineStride;
+      for (int i = 0; i < width; i++) {
+        int clr = data[start + i];
+        rowValues[i * 3] = (clr >> 16) & 0xFF;
+        rowValues[i * 3 + 1] = (clr >> 8) & 0xFF;
+        rowValues[i * 3 + 2] = clr & 0xFF;
+      }
+      decoded.setRowRGB(firstRow + j, rowValues, 0);
+    }
+  }
+
+  /**
+   * <p>Converts every pixel of the given image through its color model, one row at a time.</p>
+   *
+   * @param image    the image to be converted
+   * @param decoded  the image to hold the pixels
+   * @param firstRow the row of the image of the model that receives the first row
+   */
+  private static void decodeWithColorModel(BufferedImage image, WritableImage decoded,
+                                           int firstRow) {
+    int width = decoded.getWidth();
+    int[] rgbRow = new int[width];
+    int[] rowValues = new int[width * 3];
+    for (int j = 0; j < image.getHeight(); j++) {
+      image.getRGB(0, j, width, 1, rgbRow, 0, width);
+      for (int i = 0; i < width; i++) {
+        int clr = rgbRow[i];
+        rowValues[i * 3] = (clr >> 16) & 0xFF;
+        rowValues[i * 3 + 1] = (clr >> 8) & 0xFF;
+        rowValues[i * 3 + 2] = clr & 0xFF;
+      }
+      decoded.setRowRGB(firstRow + j, rowValues, 0);
+    }
+  }
+
+  /**
+   * <p>Encodes the given image of the model into a {@code TYPE_3BYTE_BGR} buffered image. The
+   * given buffered image is written over and returned if it has the same size as the image and
+   * can be written directly, so that a caller converting images of the same size over and over
+   * does not need a new buffered image each time.</p>
+   *
+   * @param image  the image to be encoded
+   * @param reused a buffered image that may be written over, or null to always create a new one
+   * @return the buffered image holding the encoded image
+   */
+  static BufferedImage encode(Image image, BufferedImage reused) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    BufferedImage encoded = reused;
+    if (encoded == null || encoded.getType() != BufferedImage.TYPE_3BYTE_BGR
+            || encoded.getWidth() != width || encoded.getHeight() != height
+            || encoded.getRaster().getSampleModelTranslateX() != 0
+            || encoded.getRaster().getSampleModelTranslateY() != 0) {
+      encoded = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+    }
+    Raster raster = encoded.getRaster();
+    ComponentSampleModel sampleModel = (ComponentSampleModel) raster.getSampleModel();
+    DataBufferByte dataBuffer = (DataBufferByte) raster.getDataBuffer();
+    byte[] data = dataBuffer.getData(sampleModel.getBankIndices()[0]);
+    int offset = dataBuffer.getOffset();
+    int scanlineStride = sampleModel.getScanlineStride();
+    int redOffset = sampleModel.getBandOffsets()[0];
+    int greenOffset = sampleModel.getBandOffsets()[1];
+    int blueOffset = sampleModel.getBandOffsets()[2];
+
+    if (image instanceof RunLengthEncoded) {
+      RunLengthEncoded runs = (RunLengthEncoded) image;
+      RowBands.run(width, height, RowBands.defaultParallelism(), (startRow, endRow) -> {
+        int[] runEnds = new int[width];
+        int[] colors = new int[width];
+        for (int j = startRow; j < endRow; j++) {
+          int runCount = runs.getRuns(j, runEnds, colors);
+          int start = offset + j * scanlineStride;
+          int column = 0;
+          for (int run = 0; run < runCount; run++) {
+            byte red = (byte) (colors[run] >> 16);
+            byte green = (byte) (colors[run] >> 8);
+            byte blue = (byte) colors[run];
+            for (; column < runEnds[run]; column++) {
+              data[start + column * 3 + redOffset] = red;
+              data[start + column * 3 + greenOffset] = green;
+              data[start + column * 3 + blueOffset] = blue;
+            }
+          }
+        }
+      });
+    } else {
+      RowBands.run(width, height, RowBands.defaultParallelism(), (startRow, endRow) -> {
+        int[] rowValues = new int[width * 3];
+        for (int j = startRow; j < endRow; j++) {
+          image.getRowRGB(j, rowValues, 0);
+          int start = offset + j * scanlineStride;
+          for (int i = 0; i < width; i++) {
+            data[start + i * 3 + redOffset] = (byte) rowValues[i * 3];
+            data[start + i * 3 + greenOffset] = (byte) rowValues[i * 3 + 1];
+            data[start + i * 3 + blueOffset] = (byte) rowValues[i * 3 + 2];
+          }
+        }
+      });
+    }
+    return encoded;
+  }
+
+  /**
+   * <p>Returns a view of the given image of the model as a rendered image whose pixels are
+   * encoded, in the layout of a {@code TYPE_3BYTE_BGR} image, only when they are asked for. An
+   * image writer that asks for one strip of rows at a time, as those of PNG and BMP do, then
+   * saves the image without ever holding all of its pixels in the heap.</p>
+   *
+   * @param image the image to be encoded
+   * @return the view of the image
+   */
+  static RenderedImage encodeInStrips(Image image) {
+    return new StripImage(image);
+  }
+
+  /**
+   * A rendered image made of strips of full rows, each encoded from the image of the model when
+   * it is asked for.
+   */
+  private static final class StripImage implements RenderedImage {
+    private final Image image;
+    private final ColorModel colorModel;
+    private final int stripRows;
+
+    private StripImage(Image image) {
+      this.image = image;
+      this.colorModel = new BufferedImage(1, 1, BufferedImage.TYPE_3BYTE_BGR).getColorModel();
+      this.stripRows = Math.max(1, Math.min(image.getHeight(),
+              STRIP_BYTES / (image.getWidth() * 3)));
+    }
+
+    private static SampleModel sampleModel(int width, int height) {
+      return new PixelInterleavedSampleModel(DataBuffer.TYPE_BYTE, width, height, 3,
+              width * 3, BGR_OFFSETS);
+    }
+
+    @Override
+    public Vector<RenderedImage> getSources() {
+      return null;
+    }
+
+    @Override
+    public Object getProperty(String name) {
+      return java.awt.Image.UndefinedProperty;
+    }
+
+    @Override
+    public String[] getPropertyNames() {
+      return null;
+    }
+
+    @Override
+    public ColorModel getColorModel() {
+      return this.colorModel;
+    }
+
+    @Override
+    public SampleModel getSampleModel() {
+      return sampleModel(this.image.getWidth(), this.stripRows);
+    }
+
+    @Override
+    public int getWidth() {
+      return this.image.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+      return this.image.getHeight();
+    }
+
+    @Override
+    public int getMinX() {
+      return 0;
+    }
+
+    @Override
+    public int getMinY() {
+      return 0;
+    }
+
+    @Override
+    public int getNumXTiles() {
+      return 1;
+    }
+
+    @Override
+    public int getNumYTiles() {
+      return (this.image.getHeight() + this.stripRows - 1) / this.stripRows;
+    }
+
+    @Override
+    public int getMinTileX() {
+      return 0;
+    }
+
+    @Override
+    public int getMinTileY() {
+      return 0;
+    }
+
+    @Override
+    public int getTileWidth() {
+      return this.image.getWidth();
+    }
+
+    @Override
+    public int getTileHeight() {
+      return this.stripRows;
+    }
+
+    @Override
+    public int getTileGridXOffset() {
+      return 0;
+    }
+
+    @Override
+    public int getTileGridYOffset() {
+      return 0;
+    }
+
+    @Override
+    public Raster getTile(int tileX, int tileY) {
+      int firstRow = tileY * this.stripRows;
+      return getData(new Rectangle(0, firstRow, this.image.getWidth(),
+              Math.min(this.stripRows, this.image.getHeight() - firstRow)));
+    }
+
+    @Override
+    public Raster getData() {
+      return getData(new Rectangle(0, 0, this.image.getWidth(), this.image.getHeight()));
+    }
+
+    @Override
+    public Raster getData(Rectangle region) {
+      Rectangle bounds = region.intersection(
+              new Rectangle(0, 0, this.image.getWidth(), this.image.getHeight()));
+      if (bounds.isEmpty()) {
+        throw new IllegalArgumentException("region outside of the image.");
+      }
+      WritableRaster raster = Raster.createWritableRaster(
+              sampleModel(bounds.width, bounds.height), new Point(bounds.x, bounds.y));
+      copyData(raster);
+      return raster;
+    }
+
+    @Override
+    public WritableRaster copyData(WritableRaster raster) {
+      if (raster == null) {
+        raster = Raster.createWritableRaster(
+                sampleModel(this.image.getWidth(), this.image.getHeight()), null);
+      }
+      Rectangle bounds = raster.getBounds().intersection(
+              new Rectangle(0, 0, this.image.getWidth(), this.image.getHeight()));
+      int[] rowValues = new int[this.image.getWidth() * 3];
+      int[] pixels = new int[bounds.width * 3];
+      for (int row = bounds.y; row < bounds.y + bounds.height; row++) {
+        this.image.getRowRGB(row, rowValues, 0);
+        System.arraycopy(rowValues, bounds.x * 3, pixels, 0, pixels.length);
+        raster.setPixels(bounds.x, row, bounds.width, 1, pixels);
+      }
+      return raster;
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package model;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import model.dither.Dither;
+import model.filters.Filter;
+import model.generateshapes.GeneratePattern;
+import model.mosaic.Mosaic;
+import model.progress.CancellationToken;
+import model.progress.ProgressListener;
+import model.progress.ProgressMonitor;
+import model.tranformations.Transform;
+
+/**
+ * <p>Performs the operations of an {@link EnhancedImageModel} without blocking the calling
+ * thread. Each operation runs on an executor and returns a future of the model holding its
+ * result, whose image is already computed.</p>
+ *
+ * <p>An operation can be given a {@link CancellationToken}, which the engines check between rows
+ * or bands of rows; once the token is cancelled the operation stops and its future completes
+ * exceptionally with a {@link CancellationException}. It can also be given a {@link
+ * ProgressListener}, which is told the part of the operation that is done as the engines report
+ * the rows they finish. The listener may be called from any thread, so a GUI has to pass the
+ * progress on to its own thread.</p>
+ */
+public class AsyncImageModel {
+
+  private final EnhancedImageModel model;
+  private final Executor executor;
+
+  /**
+   * <p>Creates an asynchronous model that performs the operations of the given model on the
+   * common fork join pool.</p>
+   *
+   * @param model the model whose operations are performed
+   * @throws IllegalArgumentException if the model is null
+   */
+  public AsyncImageModel(EnhancedImageModel model) throws IllegalArgumentException {
+    this(model, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * <p>Creates an asynchronous model that performs the operations of the given model on the
+   * given executor.</p>
+   *
+   * @param model    the model whose operations are performed
+   * @param executor the executor the operations run on
+   * @throws IllegalArgumentException if the model or the executor is null
+   */
+  public AsyncImageModel(EnhancedImageModel model, Executor executor)
+          throws IllegalArgumentException {
+    if (model == null || executor == null) {
+      throw new IllegalArgumentException("model and executor cannot be null.");
+    }
+    this.model = model;
+    this.executor = executor;
+  }
+
+  /**
+   * <p>Returns the model whose operations are performed.</p>
+   *
+   * @return the model
+   */
+  public EnhancedImageModel getModel() {
+    return this.model;
+  }
+
+  /**
+   * <p>Applies a filter on the image of the model without blocking.</p>
+   *
+   * @param filter   an implementation of {@link Filter}
+   * @param token    the token that cancels the operation, or null if it cannot be cancelled
+   * @param listener the listener told about the progress, or null if nobody listens
+   * @return the model with the filter applied, once it is computed
+   */
+  public CompletableFuture<EnhancedImageModel> applyFilter(Filter filter,
+                                                           CancellationToken token,
+                                                           ProgressListener listener) {
+    return submit(model -> model.applyFilter(filter), token, listener);
+  }
+
+  /**
+   * <p>Applies a transformation on the image of the model without blocking.</p>
+   *
+   * @param transform an implementation of {@link Transform}
+   * @param token     the token that cancels the operation, or null if it cannot be cancelled
+   * @param listener  the listener told about the progress, or null if nobody listens
+   * @return the model with the transformation applied, once it is computed
+   */
+  public CompletableFuture<EnhancedImageModel> applyTransform(Transform transform,
+                                                              CancellationToken token,
+                                                              ProgressListener listener) {
+    return submit(model -> model.applyTransform(transform), token, listener);
+  }
+
+  /**
+   * <p>Generates a pattern without blocking.</p>
+   *
+   * @param pattern  an implementation of {@link GeneratePattern}
+   * @param token    the token that cancels the operation, or null if it cannot be cancelled
+   * @param listener the listener told about the progress, or null if nobody listens
+   * @return the model with the generated pattern, once it is computed
+   */
+  public CompletableFuture<EnhancedImageModel> generateImage(GeneratePattern pattern,
+                                                             CancellationToken token,
+                                                             ProgressListener listener) {
+    return submit(model -> model.generateImage(pattern), token, listener);
+  }
+
+  /**
+   * <p>Dithers the image of the model without blocking.</p>
+   *
+   * @param dither   an implementation of {@link Dither}
+   * @param token    the token that cancels the operation, or null if it cannot be cancelled
+   * @param listener the listener told about the progress, or null if nobody listens
+   * @return the model with the dithered image, once it is computed
+   */
+  public CompletableFuture<EnhancedImageModel> generateDithered(Dither dither,
+                                                                CancellationToken token,
+                                                                ProgressListener listener) {
+    return submit(model -> model.generateDithered(dither), token, listener);
+  }
+
+  /**
+   * <p>Makes a mosaic of the image of the model without blocking.</p>
+   *
+   * @param mosaic   an implementation of {@link Mosaic}
+   * @param token    the token that cancels the operation, or null if it cannot be cancelled
+   * @param listener the listener told about the progress, or null if nobody listens
+   * @return the model with the mosaic image, once it is computed
+   */
+  public CompletableFuture<EnhancedImageModel> generateMosaic(Mosaic mosaic,
+                                                              CancellationToken token,
+                                                              ProgressListener listener) {
+    return submit(model -> model.generateMosaic(mosaic), token, listener);
+  }
+
+  /**
+   * <p>Runs an operation on the executor under a {@link ProgressMonitor} for the token and the
+   * listener. The image of the result is computed before the future completes.</p>
+   *
+   * @param operation the operation performed on the model
+   * @param token     the token that cancels the operation, or null if it cannot be cancelled
+   * @param listener  the listener told about the progress, or null if nobody listens
+   * @return the model holding the result, once it is computed
+   */
+  private CompletableFuture<EnhancedImageModel> submit(
+          Function<EnhancedImageModel, EnhancedImageModel> operation, CancellationToken token,
+          ProgressListener listener) {
+    ProgressMonitor monitor = new ProgressMonitor(token, listener);
+    return CompletableFuture.supplyAsync(() -> monitor.run(() -> {
+      EnhancedImageModel result = operation.apply(this.model);
+      result.getModelImage();
+      return result;
+    }), this.executor);
+  }
+}
@@ -0,0 +1,16 @@
+package model;
+
+/**
+ * <p>Represents an operation on images whose result depends only on the image it is performed on
+ * and on its own parameters, so the result can be kept and reused by a {@link ResultCache}.</p>
+ */
+public interface Cacheable {
+
+  /**
+   * <p>Returns a key that identifies the operation and its parameters. Two operations with the
+   * same key give the same result on the same image.</p>
+   *
+   * @return the key of the operation, or null if its result cannot be reproduced
+   */
+  String getCacheKey();
+}
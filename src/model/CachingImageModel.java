@@ -0,0 +1,214 @@
+package model;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+import model.dither.Dither;
+import model.filters.Filter;
+import model.generateshapes.GeneratePattern;
+import model.image.Image;
+import model.image.Images;
+import model.mosaic.Mosaic;
+import model.tranformations.Transform;
+
+/**
+ * <p>This class implements the {@link EnhancedImageModel} interface by passing every operation to
+ * another model, and keeps the results of the operations that are {@link Cacheable} in a {@link
+ * ResultCache}. An operation performed again on an image with the same content is then taken from
+ * the cache instead of being computed.</p>
+ *
+ * <p>A result is kept under a key derived from the hash of the content of the image the operation
+ * is performed on and the key of the operation, so the same operation on an image loaded again, or
+ * reached through other operations, is found as well. The results of the operations that are not
+ * cacheable, and the generated patterns, which cost next to nothing, are not kept. Neither are the
+ * operations on images stored outside of the heap, whose results are stored outside of the heap
+ * too, so their images are not read through to compute a hash.</p>
+ *
+ * <p>The operations are passed on wrapped, so the cache is looked up, and the result kept, only
+ * when the other model actually performs an operation. A {@link LazyImageModel} therefore still
+ * performs nothing until a result is needed, and the hash of an image is computed on the thread
+ * that performs the operation. The hash of each image is computed once and remembered for as long
+ * as the image is in use.</p>
+ */
+public class CachingImageModel implements EnhancedImageModel {
+
+  private final EnhancedImageModel delegate;
+  private final ResultCache cache;
+  private final Map<Image, Long> hashes;
+
+  /**
+   * <p>Creates a model that passes every operation to the given model and keeps the results in
+   * the given cache.</p>
+   *
+   * @param delegate the model the operations are passed to
+   * @param cache    the cache the results are kept in
+   * @throws IllegalArgumentException if the model or the cache is null
+   */
+  public CachingImageModel(EnhancedImageModel delegate, ResultCache cache)
+          throws IllegalArgumentException {
+    this(delegate, cache, Collections.synchronizedMap(new WeakHashMap<>()));
+  }
+
+  /**
+   * <p>Creates a model that passes every operation to the given model, keeps the results in the
+   * given cache and shares the hashes of the images with the model it was made from.</p>
+   *
+   * @param delegate the model the operations are passed to
+   * @param cache    the cache the results are kept in
+   * @param hashes   the hashes of the images already hashed
+   * @throws IllegalArgumentException if the model or the cache is null
+   */
+  private CachingImageModel(EnhancedImageModel delegate, ResultCache cache,
+                            Map<Image, Long> hashes) throws IllegalArgumentException {
+    if (delegate == null || cache == null) {
+      throw new IllegalArgumentException("model and cache cannot be null.");
+    }
+    this.delegate = delegate;
+    this.cache = cache;
+    this.hashes = hashes;
+  }
+
+  /**
+   * <p>Returns the model the operations are passed to.</p>
+   *
+   * @return the model this model wraps
+   */
+  public EnhancedImageModel getDelegate() {
+    return this.delegate;
+  }
+
+  @Override
+  public EnhancedImageModel applyFilter(Filter filter) {
+    String key = keyOf(filter);
+    return wrap(this.delegate.applyFilter(key == null ? filter
+            : image -> cached(image, key, filter::applyFilter)));
+  }
+
+  @Override
+  public EnhancedImageModel applyTransform(Transform transform) {
+    String key = keyOf(transform);
+    return wrap(this.delegate.applyTransform(key == null ? transform
+            : new CachedTransform(transform, key)));
+  }
+
+  @Override
+  public EnhancedImageModel generateImage(GeneratePattern pattern) {
+    return wrap(this.delegate.generateImage(pattern));
+  }
+
+  @Override
+  public EnhancedImageModel generateDithered(Dither dither) {
+    String key = keyOf(dither);
+    return wrap(this.delegate.generateDithered(key == null ? dither
+            : image -> cached(image, key, dither::dither)));
+  }
+
+  @Override
+  public EnhancedImageModel generateMosaic(Mosaic mosaic) {
+    String key = keyOf(mosaic);
+    return wrap(this.delegate.generateMosaic(key == null ? mosaic
+            : image -> cached(image, key, mosaic::mosaic)));
+  }
+
+  @Override
+  public EnhancedImageModel fromImage(Image image) {
+    return wrap(this.delegate.fromImage(image));
+  }
+
+  @Override
+  public Image getModelImage() throws IllegalStateException {
+    return this.delegate.getModelImage();
+  }
+
+  /**
+   * <p>Returns a model that passes its operations to the given model and shares the cache and the
+   * hashes of this model.</p>
+   *
+   * @param model the model the operations are passed to
+   * @return the caching model
+   */
+  private CachingImageModel wrap(EnhancedImageModel model) {
+    return new CachingImageModel(model, this.cache, this.hashes);
+  }
+
+  /**
+   * <p>Returns the key of an operation, or null if its results are not kept.</p>
+   *
+   * @param operation the operation
+   * @return the key of the operation
+   */
+  private static String keyOf(Object operation) {
+    return operation instanceof Cacheable ? ((Cacheable) operation).getCacheKey() : null;
+  }
+
+  /**
+   * <p>Returns the result of an operation on an image from the cache, or performs it and keeps the
+   * result if it is not there. An operation on an image stored outside of the heap is only
+   * performed.</p>
+   *
+   * @param image        the image the operation is performed on
+   * @param operationKey the key of the operation
+   * @param operation    performs the operation on an image
+   * @return the result
+   */
+  private Image cached(Image image, String operationKey, Function<Image, Image> operation) {
+    if (image == null || Images.isOutOfCore(image)) {
+      return operation.apply(image);
+    }
+    long resultKey = ResultCache.derive(hashOf(image), operationKey);
+    Image result = this.cache.get(resultKey);
+    if (result == null) {
+      result = operation.apply(image);
+      this.cache.put(resultKey, result);
+    }
+    return result;
+  }
+
+  /**
+   * <p>Returns the hash of the content of an image, computing it the first time.</p>
+   *
+   * @param image the image
+   * @return the hash of the image
+   */
+  private long hashOf(Image image) {
+    Long hash = this.hashes.get(image);
+    if (hash == null) {
+      hash = ResultCache.hash(image);
+      this.hashes.put(image, hash);
+    }
+    return hash;
+  }
+
+  /**
+   * A transformation that looks up its result in the cache when it is applied to a whole image.
+   * Its pixels are transformed by the wrapped transformation, so a model can still chain it with
+   * other transformations.
+   */
+  private final class CachedTransform implements Transform, Cacheable {
+    private final Transform transform;
+    private final String key;
+
+    private CachedTransform(Transform transform, String key) {
+      this.transform = transform;
+      this.key = key;
+    }
+
+    @Override
+    public Image applyTransformation(Image image) throws IllegalArgumentException {
+      return cached(image, this.key, this.transform::applyTransformation);
+    }
+
+    @Override
+    public void transformPixels(int[] pixels, int offset, int pixelCount)
+            throws IllegalArgumentException {
+      this.transform.transformPixels(pixels, offset, pixelCount);
+    }
+
+    @Override
+    public String getCacheKey() {
+      return this.key;
+    }
+  }
+}
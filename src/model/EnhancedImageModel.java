@@ -1,8 +1,11 @@
 package model;
 
 import model.dither.Dither;
+import model.filters.Filter;
+import model.generateshapes.GeneratePattern;
 import model.image.Image;
 import model.mosaic.Mosaic;
+import model.tranformations.Transform;
 
 /**
  * This interface extends the ImageModel. It adds functionality to the existing ImageModel by
@@ -10,6 +13,36 @@ import model.mosaic.Mosaic;
  */
 public interface EnhancedImageModel extends ImageModel {
 
+  /**
+   * <p>Applies any kind of {@link Filter} and returns a new EnhancedImageModel with the filter
+   * applied on the image, so that further enhancements can be made to the result.</p>
+   *
+   * @param filter an implementation of {@link Filter}
+   * @return new enhanced image model with the filter applied
+   */
+  @Override
+  EnhancedImageModel applyFilter(Filter filter);
+
+  /**
+   * <p>Applies any kind of {@link Transform} and returns a new EnhancedImageModel with the
+   * transformation applied on the image.</p>
+   *
+   * @param transform an implementation of {@link Transform}
+   * @return new enhanced image model with the transformation applied
+   */
+  @Override
+  EnhancedImageModel applyTransform(Transform transform);
+
+  /**
+   * <p>Generates an image of a specified type using any implementation of {@link
+   * GeneratePattern} and returns it in a new EnhancedImageModel.</p>
+   *
+   * @param pattern any implementation of {@link GeneratePattern}
+   * @return new enhanced image model with the desired pattern
+   */
+  @Override
+  EnhancedImageModel generateImage(GeneratePattern pattern);
+
   /**
    * <p>Generates an image that is dithered using any implementation of {@link
    * Dither}.</p>
@@ -1,8 +1,11 @@
 package model;
 
 import model.dither.Dither;
+import model.filters.Filter;
+import model.generateshapes.GeneratePattern;
 import model.image.Image;
 import model.mosaic.Mosaic;
+import model.tranformations.Transform;
 
 /**
  * This class extends the ImageModelImpl and implements the EnhancedImageModel. It represents an
@@ -27,6 +30,21 @@ public class EnhancedImageModelImpl extends ImageModelImpl implements EnhancedIm
     //When image are required to be generated.
   }
 
+  @Override
+  public EnhancedImageModel applyFilter(Filter filter) {
+    return new EnhancedImageModelImpl(filter.applyFilter(this.image));
+  }
+
+  @Override
+  public EnhancedImageModel applyTransform(Transform transform) {
+    return new EnhancedImageModelImpl(transform.applyTransformation(this.image));
+  }
+
+  @Override
+  public EnhancedImageModel generateImage(GeneratePattern pattern) {
+    return new EnhancedImageModelImpl(pattern.generate());
+  }
+
   @Override
   public EnhancedImageModel generateDithered(Dither dither) {
     return new EnhancedImageModelImpl(dither.dither(this.image));
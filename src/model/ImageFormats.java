@@ -6,6 +6,6 @@ package model;
  */
 public enum ImageFormats {
 
-  jpg, png, bmp, gif, WEBP;
+  jpg, png, bmp, gif, WEBP, raw;
 
 }
\ No newline at end of file
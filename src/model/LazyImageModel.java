@@ -0,0 +1,213 @@
+package model;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import model.dither.Dither;
+import model.filters.Filter;
+import model.generateshapes.GeneratePattern;
+import model.image.Image;
+import model.mosaic.Mosaic;
+import model.progress.ProgressMonitor;
+import model.tranformations.ChainedTransform;
+import model.tranformations.Transform;
+
+/**
+ * <p>This class implements the {@link EnhancedImageModel} interface. Unlike
+ * {@link EnhancedImageModelImpl} it does not perform an operation when it is asked to, but only
+ * records it. Every model is a node of a graph of operations that points to the model it was made
+ * from, and its image is computed only when {@link #getModelImage()} or {@link #evaluate()} is
+ * called. Operations whose results are never asked for, such as those made on an image that is
+ * then replaced by a newly loaded one, are never performed.</p>
+ *
+ * <p>A transformation recorded on a model holding a transformation that has not been performed
+ * yet is fused with it into a single {@link ChainedTransform}, so consecutive transformations
+ * take a single pass over the image. Each node is computed at most once and its image is kept,
+ * so models made from the same model share its image. Evaluation runs on an executor, so separate
+ * branches of the graph asked for at the same time are computed concurrently.</p>
+ *
+ * <p>Once a node is computed it lets go of the model it was made from, so a long chain of
+ * operations does not keep every image in between. The operations report their progress to, and
+ * are cancelled by, the {@link ProgressMonitor} of the thread that asked for the image, even
+ * though they run on the executor.</p>
+ */
+public class LazyImageModel implements EnhancedImageModel {
+
+  private final Executor executor;
+  private final Transform transform;
+  private LazyImageModel parent;
+  private Function<Image, Image> operation;
+  private CompletableFuture<Image> result;
+
+  /**
+   * <p>Creates a model without an image, used to generate images. Operations are computed on the
+   * common fork join pool.</p>
+   */
+  public LazyImageModel() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * <p>Creates a model without an image, used to generate images, whose operations are computed
+   * on the given executor.</p>
+   *
+   * @param executor the executor the operations are computed on
+   * @throws IllegalArgumentException if the executor is null
+   */
+  public LazyImageModel(Executor executor) throws IllegalArgumentException {
+    this(null, null, null, executor);
+  }
+
+  /**
+   * <p>Creates a model holding the given image. Operations are computed on the common fork join
+   * pool.</p>
+   *
+   * @param image the image of the model
+   * @throws IllegalArgumentException if the image is null
+   */
+  public LazyImageModel(Image image) throws IllegalArgumentException {
+    this(null, null, null, ForkJoinPool.commonPool());
+    if (image == null) {
+      throw new IllegalArgumentException("image cannot be null");
+    }
+    this.result = CompletableFuture.completedFuture(image);
+  }
+
+  /**
+   * <p>Creates a node that computes its image by performing the operation on the image of its
+   * parent.</p>
+   *
+   * @param parent    the model the operation is performed on, or null if the operation creates an
+   *                  image of its own
+   * @param operation the operation, or null for a model without an image
+   * @param transform the transformation performed by the operation if it is one, otherwise null
+   * @param executor  the executor the operations are computed on
+   * @throws IllegalArgumentException if the executor is null
+   */
+  private LazyImageModel(LazyImageModel parent, Function<Image, Image> operation,
+                         Transform transform, Executor executor)
+          throws IllegalArgumentException {
+    if (executor == null) {
+      throw new IllegalArgumentException("invalid executor.");
+    }
+    this.parent = parent;
+    this.operation = operation;
+    this.transform = transform;
+    this.executor = executor;
+  }
+
+  @Override
+  public EnhancedImageModel applyFilter(Filter filter) {
+    return new LazyImageModel(this, filter::applyFilter, null, this.executor);
+  }
+
+  @Override
+  public synchronized EnhancedImageModel applyTransform(Transform transform) {
+    if (this.transform != null && this.result == null) {
+      Transform fused = new ChainedTransform(List.of(this.transform, transform));
+      return new LazyImageModel(this.parent, fused::applyTransformation, fused, this.executor);
+    }
+    return new LazyImageModel(this, transform::applyTransformation, transform, this.executor);
+  }
+
+  @Override
+  public EnhancedImageModel generateImage(GeneratePattern pattern) {
+    return new LazyImageModel(null, image -> pattern.generate(), null, this.executor);
+  }
+
+  @Override
+  public EnhancedImageModel generateDithered(Dither dither) {
+    return new LazyImageModel(this, dither::dither, null, this.executor);
+  }
+
+  @Override
+  public EnhancedImageModel generateMosaic(Mosaic mosaic) {
+    return new LazyImageModel(this, mosaic::mosaic, null, this.executor);
+  }
+
+  @Override
+  public EnhancedImageModel fromImage(Image image) {
+    if (image == null) {
+      throw new IllegalArgumentException("image cannot be null");
+    }
+    LazyImageModel model = new LazyImageModel(null, null, null, this.executor);
+    model.result = CompletableFuture.completedFuture(image);
+    return model;
+  }
+
+  /**
+   * <p>Starts computing the image of this model, if it has not been started already, and returns
+   * the future result without waiting for it. The models it depends on are computed first, each
+   * at most once.</p>
+   *
+   * <p>The operations run under the {@link ProgressMonitor} current on the calling thread, so
+   * they report their progress to it and stop once it is cancelled. A model whose computation was
+   * cancelled can be computed again.</p>
+   *
+   * @return the image of this model once it is computed
+   * @throws IllegalStateException if the model has no image
+   */
+  public synchronized CompletableFuture<Image> evaluate() throws IllegalStateException {
+    if (this.result == null) {
+      if (this.operation == null) {
+        throw new IllegalStateException("invalid image.");
+      }
+      ProgressMonitor monitor = ProgressMonitor.current();
+      Function<Image, Image> operation = this.operation;
+      CompletableFuture<Image> input = this.parent == null
+              ? CompletableFuture.completedFuture(null) : this.parent.evaluate();
+      CompletableFuture<Image> computed = input.thenApplyAsync(
+              image -> monitor.runPart(() -> operation.apply(image)), this.executor);
+      this.result = computed;
+      computed.whenComplete((image, failure) -> computed(computed, failure));
+    }
+    return this.result;
+  }
+
+  /**
+   * <p>Lets go of the model this model was made from once its image is computed, or forgets the
+   * computation if it was cancelled so the image can be computed again.</p>
+   *
+   * @param computed the computation that finished
+   * @param failure  the exception the computation failed with, or null if it succeeded
+   */
+  private synchronized void computed(CompletableFuture<Image> computed, Throwable failure) {
+    if (this.result != computed) {
+      return;
+    }
+    Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+            ? failure.getCause() : failure;
+    if (cause == null) {
+      this.parent = null;
+      this.operation = null;
+    } else if (cause instanceof CancellationException) {
+      this.result = null;
+    }
+  }
+
+  /**
+   * <p>Returns the image of this model, computing it and the models it depends on first if
+   * needed.</p>
+   *
+   * @return the image of this model
+   * @throws IllegalStateException if the model has no image
+   */
+  @Override
+  public Image getModelImage() throws IllegalStateException {
+    try {
+      return evaluate().join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      } else if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,272 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import model.image.Image;
+import model.image.Images;
+import model.image.ProceduralImage;
+import model.image.RawImageFile;
+
+/**
+ * <p>Keeps the results of image operations so an operation performed again on the same image
+ * does not have to be computed again. Results are found by a 64 bit key, derived from the hash of
+ * the content of the image an operation is performed on and the key of the operation, see {@link
+ * #hash(Image)} and {@link #derive(long, String)}.</p>
+ *
+ * <p>The results are kept in memory within a budget of bytes, and the ones used least recently
+ * are dropped first. If a directory is given, the dropped results are written there in the raw
+ * image format instead of being forgotten, and are read back by mapping the file when they are
+ * needed again. The cache counts how many results were found and how many were not.</p>
+ *
+ * <p>Results stored outside of the heap are not kept, since keeping them would keep their scratch
+ * files, and so disk space and address space, without bound. Neither are results computed when
+ * their pixels are read, which cost next to nothing to compute again.</p>
+ *
+ * <p>All the methods are synchronized, so a cache can be shared by models evaluated on several
+ * threads.</p>
+ */
+public class ResultCache {
+
+  private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+  private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long PRIME_3 = 0x165667B19E3779F9L;
+
+  private final long budget;
+  private final File spillDirectory;
+  private final LinkedHashMap<Long, Image> results;
+  private final Map<Long, File> spilled;
+  private long bytes;
+  private long hits;
+  private long diskHits;
+  private long misses;
+
+  /**
+   * <p>Creates a cache that keeps results in memory only, within the given number of bytes.</p>
+   *
+   * @param budget the number of bytes the results kept in memory may take
+   * @throws IllegalArgumentException if the budget is negative
+   */
+  public ResultCache(long budget) throws IllegalArgumentException {
+    this(budget, null);
+  }
+
+  /**
+   * <p>Creates a cache that keeps results in memory within the given number of bytes, and writes
+   * the results that do not fit to files in the given directory.</p>
+   *
+   * @param budget         the number of bytes the results kept in memory may take
+   * @param spillDirectory the directory the results that do not fit are written to, or null to
+   *                       forget them
+   * @throws IllegalArgumentException if the budget is negative or the directory does not exist
+   */
+  public ResultCache(long budget, File spillDirectory) throws IllegalArgumentException {
+    if (budget < 0) {
+      throw new IllegalArgumentException("budget cannot be negative.");
+    }
+    if (spillDirectory != null && !spillDirectory.isDirectory()) {
+      throw new IllegalArgumentException("invalid directory.");
+    }
+    this.budget = budget;
+    this.spillDirectory = spillDirectory;
+    this.results = new LinkedHashMap<>(16, 0.75f, true);
+    this.spilled = new HashMap<>();
+  }
+
+  /**
+   * <p>Computes a 64 bit hash of the size and the pixels of an image. Images with the same size
+   * and pixels have the same hash, however they are stored.</p>
+   *
+   * @param image the image
+   * @return the hash of the image
+   * @throws IllegalArgumentException if the image is null
+   */
+  public static long hash(Image image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("invalid image.");
+    }
+    int width = image.getWidth();
+    long hash = ((long) width << 32 | image.getHeight()) * PRIME_1;
+    int[] row = new int[width * 3];
+    for (int r = 0; r < image.getHeight(); r++) {
+      image.getRowRGB(r, row, 0);
+      for (int i = 0; i < row.length; i += 3) {
+        long pixel = row[i] << 16 | row[i + 1] << 8 | row[i + 2];
+        hash = Long.rotateLeft(hash ^ pixel * PRIME_2, 31) * PRIME_1;
+      }
+    }
+    return avalanche(hash);
+  }
+
+  /**
+   * <p>Computes the key of the result of an operation from the hash of the image it is performed
+   * on and the key of the operation.</p>
+   *
+   * @param imageKey     the hash of the image
+   * @param operationKey the key of the operation
+   * @return the key of the result
+   */
+  public static long derive(long imageKey, String operationKey) {
+    long hash = imageKey * PRIME_3;
+    for (int i = 0; i < operationKey.length(); i++) {
+      hash = Long.rotateLeft(hash ^ operationKey.charAt(i) * PRIME_2, 31) * PRIME_1;
+    }
+    return avalanche(hash ^ operationKey.length());
+  }
+
+  /**
+   * <p>Mixes the bits of a hash so every bit of the input affects every bit of the output.</p>
+   *
+   * @param hash the hash
+   * @return the mixed hash
+   */
+  private static long avalanche(long hash) {
+    hash ^= hash >>> 33;
+    hash *= PRIME_2;
+    hash ^= hash >>> 29;
+    hash *= PRIME_3;
+    return hash ^ hash >>> 32;
+  }
+
+  /**
+   * <p>Returns the result kept under the given key, reading it back from its file if it was
+   * written to one, and counts whether it was found.</p>
+   *
+   * @param key the key of the result
+   * @return the result, or null if it is not kept
+   */
+  public synchronized Image get(long key) {
+    Image image = this.results.get(key);
+    if (image != null) {
+      this.hits++;
+      return image;
+    }
+    File file = this.spilled.get(key);
+    if (file != null) {
+      try {
+        image = RawImageFile.read(file);
+        this.hits++;
+        this.diskHits++;
+        return image;
+      } catch (IOException | IllegalArgumentException e) {
+        this.spilled.remove(key);
+      }
+    }
+    this.misses++;
+    return null;
+  }
+
+  /**
+   * <p>Keeps a result under the given key, dropping or writing out the results used least
+   * recently if they no longer fit in the budget. A result stored outside of the heap, or computed
+   * when its pixels are read, is not kept.</p>
+   *
+   * @param key   the key of the result
+   * @param image the result
+   * @throws IllegalArgumentException if the image is null
+   */
+  public synchronized void put(long key, Image image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("invalid image.");
+    }
+    if (Images.isOutOfCore(image) || image instanceof ProceduralImage) {
+      return;
+    }
+    Image previous = this.results.put(key, image);
+    if (previous != null) {
+      this.bytes -= sizeOf(previous);
+    }
+    this.bytes += sizeOf(image);
+    Iterator<Map.Entry<Long, Image>> eldest = this.results.entrySet().iterator();
+    while (this.bytes > this.budget && eldest.hasNext()) {
+      Map.Entry<Long, Image> entry = eldest.next();
+      eldest.remove();
+      this.bytes -= sizeOf(entry.getValue());
+      spill(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * <p>Writes a result dropped from memory to a file in the spill directory, if there is one and
+   * the result was not written before.</p>
+   *
+   * @param key   the key of the result
+   * @param image the result
+   */
+  private void spill(long key, Image image) {
+    if (this.spillDirectory == null || this.spilled.containsKey(key)) {
+      return;
+    }
+    File file = new File(this.spillDirectory, String.format("%016x.raw", key));
+    try {
+      RawImageFile.write(image, file);
+      file.deleteOnExit();
+      this.spilled.put(key, file);
+    } catch (IOException e) {
+      // The result is only forgotten and will be computed again if needed.
+    }
+  }
+
+  /**
+   * <p>Returns the number of bytes an image is counted as in the budget, which is what its pixels
+   * take in the heap.</p>
+   *
+   * @param image the image
+   * @return the number of bytes of its pixels in the heap
+   */
+  private static long sizeOf(Image image) {
+    return Images.heapBytes(image);
+  }
+
+  /**
+   * <p>Returns the number of results that were found, in memory or on disk.</p>
+   *
+   * @return the number of hits
+   */
+  public synchronized long getHits() {
+    return this.hits;
+  }
+
+  /**
+   * <p>Returns the number of results that were found on disk.</p>
+   *
+   * @return the number of hits read back from the spill directory
+   */
+  public synchronized long getDiskHits() {
+    return this.diskHits;
+  }
+
+  /**
+   * <p>Returns the number of results that were not found.</p>
+   *
+   * @return the number of misses
+   */
+  public synchronized long getMisses() {
+    return this.misses;
+  }
+
+  /**
+   * <p>Returns the fraction of the results looked for that were found.</p>
+   *
+   * @return the hit rate, between 0 and 1, or 0 if nothing was looked for
+   */
+  public synchronized double getHitRate() {
+    long lookups = this.hits + this.misses;
+    return lookups == 0 ? 0 : (double) this.hits / lookups;
+  }
+
+  /**
+   * <p>Describes how many results were found and not found.</p>
+   *
+   * @return the statistics of the cache
+   */
+  @Override
+  public synchronized String toString() {
+    return String.format("result cache: %d hits (%d from disk), %d misses, %.1f%% hit rate",
+            this.hits, this.diskHits, this.misses, getHitRate() * 100);
+  }
+}
@@ -0,0 +1,186 @@
+package model.dither;
+
+import java.util.Random;
+
+import model.image.GreyImage;
+import model.image.Image;
+
+/**
+ * <p>Creates the blue-noise tile used as thresholds by {@link OrderedDitherImpl}. The tile is
+ * built with the void-and-cluster method: each pixel is given a rank, and the pixels of any lower
+ * ranks are spread as evenly as possible over the tile, which wraps around at its edges. Dithering
+ * with it gives an even, unpatterned grain instead of the cross-hatching of a Bayer matrix.</p>
+ *
+ * <p>The tile is computed from a fixed seed the first time it is needed, so it is the same in
+ * every run and no file has to be shipped with the program.</p>
+ */
+public final class BlueNoise {
+
+  /**
+   * The side of the blue-noise tile.
+   */
+  public static final int TILE_SIZE = 64;
+
+  private static final double SIGMA = 1.5;
+  private static final long SEED = 0x5EED;
+
+  private BlueNoise() {
+  }
+
+  /**
+   * Holds the tile, which is computed when the class is first used.
+   */
+  private static final class Holder {
+    private static final Image TILE = createTile(TILE_SIZE, SEED);
+  }
+
+  /**
+   * <p>Returns the blue-noise tile of {@link #TILE_SIZE} by {@link #TILE_SIZE} pixels. Every pixel
+   * is grey, and the thresholds from 0 to 255 appear equally often.</p>
+   *
+   * @return the blue-noise tile
+   */
+  public static Image getTile() {
+    return Holder.TILE;
+  }
+
+  /**
+   * <p>Creates a blue-noise tile of the given side, holding the rank of each pixel scaled to a
+   * threshold between 0 and 255 the same way as the Bayer matrices.</p>
+   *
+   * @param size the side of the tile
+   * @param seed the seed of the initial random pattern
+   * @return the tile
+   */
+  static Image createTile(int size, long seed) {
+    int[] ranks = createRanks(size, seed);
+    int pixels = size * size;
+    GreyImage tile = new GreyImage(size, size);
+    int[] row = new int[size];
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        row[j] = (int) ((2L * ranks[i * size + j] + 1) * 128 / pixels);
+      }
+      tile.setGreyRow(i, row, 0);
+    }
+    return tile;
+  }
+
+  /**
+   * <p>Ranks the pixels of a square tile with the void-and-cluster method. An initial random
+   * pattern is first relaxed by moving its tightest cluster into its largest void until it is
+   * even. Its pixels are then ranked by removing the tightest cluster one at a time, and the
+   * remaining pixels by filling the largest void one at a time.</p>
+   *
+   * @param size the side of the tile
+   * @param seed the seed of the initial random pattern
+   * @return the rank of each pixel, row by row, each from 0 to {@code size * size - 1} once
+   */
+  static int[] createRanks(int size, long seed) {
+    int pixels = size * size;
+    double[] kernel = createKernel(size);
+    boolean[] pattern = new boolean[pixels];
+    double[] energy = new double[pixels];
+    Random random = new Random(seed);
+    int ones = Math.max(1, pixels / 10);
+    for (int placed = 0; placed < ones; ) {
+      int pixel = random.nextInt(pixels);
+      if (!pattern[pixel]) {
+        set(pattern, energy, kernel, size, pixel, true);
+        placed++;
+      }
+    }
+
+    for (int moves = 0; moves < pixels; moves++) {
+      int cluster = extreme(pattern, energy, true);
+      set(pattern, energy, kernel, size, cluster, false);
+      int emptiest = extreme(pattern, energy, false);
+      set(pattern, energy, kernel, size, emptiest, true);
+      if (emptiest == cluster) {
+        break;
+      }
+    }
+
+    int[] ranks = new int[pixels];
+    boolean[] prototype = pattern.clone();
+    double[] prototypeEnergy = energy.clone();
+    for (int rank = ones - 1; rank >= 0; rank--) {
+      int cluster = extreme(pattern, energy, true);
+      set(pattern, energy, kernel, size, cluster, false);
+      ranks[cluster] = rank;
+    }
+    // The kernel sums to the same value at every pixel, so the largest void of the ones is also the
+    // tightest cluster of the zeros, and filling voids ranks the pixels past the middle as well.
+    for (int rank = ones; rank < pixels; rank++) {
+      int emptiest = extreme(prototype, prototypeEnergy, false);
+      set(prototype, prototypeEnergy, kernel, size, emptiest, true);
+      ranks[emptiest] = rank;
+    }
+    return ranks;
+  }
+
+  /**
+   * <p>Creates a Gaussian kernel over a tile that wraps around at its edges, giving the weight of
+   * each offset from a pixel.</p>
+   *
+   * @param size the side of the tile
+   * @return the weight of each offset, row by row
+   */
+  private static double[] createKernel(int size) {
+    double[] kernel = new double[size * size];
+    for (int dy = 0; dy < size; dy++) {
+      int y = Math.min(dy, size - dy);
+      for (int dx = 0; dx < size; dx++) {
+        int x = Math.min(dx, size - dx);
+        kernel[dy * size + dx] = Math.exp(-(x * x + y * y) / (2 * SIGMA * SIGMA));
+      }
+    }
+    return kernel;
+  }
+
+  /**
+   * <p>Sets or clears a pixel of the pattern, adding or removing its share of the energy of every
+   * pixel.</p>
+   *
+   * @param pattern the pattern
+   * @param energy  the energy of each pixel of the pattern
+   * @param kernel  the weight of each offset
+   * @param size    the side of the tile
+   * @param pixel   the pixel to be set or cleared
+   * @param value   true to set the pixel, false to clear it
+   */
+  private static void set(boolean[] pattern, double[] energy, double[] kernel, int size,
+                          int pixel, boolean value) {
+    pattern[pixel] = value;
+    double sign = value ? 1 : -1;
+    int row = pixel / size;
+    int column = pixel % size;
+    for (int y = 0; y < size; y++) {
+      int dy = (y - row + size) % size;
+      for (int x = 0; x < size; x++) {
+        int dx = (x - column + size) % size;
+        energy[y * size + x] += sign * kernel[dy * size + dx];
+      }
+    }
+  }
+
+  /**
+   * <p>Returns the set pixel of the highest energy, the tightest cluster, or the clear pixel of
+   * the lowest energy, the largest void. Ties go to the first pixel.</p>
+   *
+   * @param pattern the pattern
+   * @param energy  the energy of each pixel of the pattern
+   * @param cluster true to find the tightest cluster, false to find the largest void
+   * @return the index of the pixel
+   */
+  private static int extreme(boolean[] pattern, double[] energy, boolean cluster) {
+    int found = -1;
+    for (int i = 0; i < pattern.length; i++) {
+      if (pattern[i] == cluster && (found < 0
+              || (cluster ? energy[i] > energy[found] : energy[i] < energy[found]))) {
+        found = i;
+      }
+    }
+    return found;
+  }
+}
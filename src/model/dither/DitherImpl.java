@@ -1,53 +1,64 @@
 package model.dither;
 
+import model.Cacheable;
+import model.image.GreyImage;
 import model.image.Image;
-import model.image.SimpleImage;
-import model.tranformations.GreyscaleTransform;
+import model.progress.ProgressMonitor;
 
 /**
  * <p>This class extends {@link Dither}. Given an image this class can be used to dither
  * an image into a grey-scaled dithered image using Floyd–Steinberg dithering methodology.</p>
+ *
+ * <p>As the result is grey, the luminance of the image is computed straight into a single plane
+ * of values, the error is diffused within that plane and the result is a {@link GreyImage} whose
+ * channels share that plane.</p>
  */
-public class DitherImpl implements Dither {
-
-  private int[][][] ditheredImage;
-  private GreyscaleTransform transform;
+public class DitherImpl implements Dither, Cacheable {
 
   /**
-   * Constructor for DitherImpl. Initialises the transformation to grey-scale transform.
+   * The key shared by the Floyd–Steinberg ditherers, which all give the same result.
    */
-  public DitherImpl() {
-    this.transform = new GreyscaleTransform();
-  }
+  static final String CACHE_KEY = "floyd-steinberg dither";
+
+  private int[] ditheredPlane;
+  private int width;
+  private int height;
 
+  @Override
+  public String getCacheKey() {
+    return CACHE_KEY;
+  }
 
   @Override
   public Image dither(Image image) {
-    Image greyScaled = this.transform.applyTransformation(image);
-    int height = greyScaled.getHeight();
-    int width = greyScaled.getWidth();
-    this.ditheredImage = new int[3][width][height];
+    this.height = image.getHeight();
+    this.width = image.getWidth();
+    this.ditheredPlane = new int[width * height];
 
+    ProgressMonitor monitor = ProgressMonitor.current();
+    monitor.begin(height);
+    int[] rowValues = new int[width * 3];
     for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        for (int channel = 0; channel < 3; channel++) {
-          this.ditheredImage[channel][j][i] = greyScaled.getPixelValue(channel, j, i);
-        }
-      }
+      image.getRowRGB(i, rowValues, 0);
+      Luminance.toLuminance(rowValues, this.ditheredPlane, i * width, width);
     }
 
     for (int i = 0; i < height; i++) {
       for (int j = 0; j < width; j++) {
-        int old_color = this.ditheredImage[0][j][i];
+        int old_color = this.ditheredPlane[i * width + j];
         int new_color = getNewColor(old_color);
         int errorVal = old_color - new_color;
-        for (int channel = 0; channel < 3; channel++) {
-          this.ditheredImage[channel][j][i] = new_color;
-          applyError(channel, i, j, errorVal);
-        }
+        this.ditheredPlane[i * width + j] = new_color;
+        applyError(i, j, errorVal);
       }
+      monitor.worked(1);
+    }
+
+    GreyImage result = new GreyImage(width, height);
+    for (int i = 0; i < height; i++) {
+      result.setGreyRow(i, this.ditheredPlane, i * width);
     }
-    return new SimpleImage(this.ditheredImage);
+    return result;
   }
 
   /**
@@ -67,27 +78,27 @@ public class DitherImpl implements Dither {
    * Applies error to the pixel of a particular row and column based upon Floyd-Steinberg algorithm,
    * after which the pixel values are clamped accordingly.
    *
-   * @param channel  one of the channel in the image.
    * @param row      the row of the image.
    * @param column   the column of the image.
    * @param errorVal the error value which is the difference of the old color and the new color.
    */
-  private void applyError(int channel, int row, int column, int errorVal) {
-    if (column + 1 < this.ditheredImage[0].length) {
-      this.ditheredImage[channel][column + 1][row] = clamp((5.0 / 16.0) * errorVal
-              + this.ditheredImage[channel][column + 1][row]);
+  private void applyError(int row, int column, int errorVal) {
+    int index = row * this.width + column;
+    if (column + 1 < this.width) {
+      this.ditheredPlane[index + 1] = clamp((5.0 / 16.0) * errorVal
+              + this.ditheredPlane[index + 1]);
     }
-    if (column + 1 < this.ditheredImage[0].length && row - 1 >= 0) {
-      this.ditheredImage[channel][column + 1][row - 1] = clamp((3.0 / 16.0) * errorVal
-              + this.ditheredImage[channel][column + 1][row - 1]);
+    if (column + 1 < this.width && row - 1 >= 0) {
+      this.ditheredPlane[index - this.width + 1] = clamp((3.0 / 16.0) * errorVal
+              + this.ditheredPlane[index - this.width + 1]);
     }
-    if (row + 1 < this.ditheredImage[0][0].length) {
-      this.ditheredImage[channel][column][row + 1] = clamp((7.0 / 16.0) * errorVal
-              + this.ditheredImage[channel][column][row + 1]);
+    if (row + 1 < this.height) {
+      this.ditheredPlane[index + this.width] = clamp((7.0 / 16.0) * errorVal
+              + this.ditheredPlane[index + this.width]);
     }
-    if (column + 1 < this.ditheredImage[0].length && row + 1 < this.ditheredImage[0][0].length) {
-      this.ditheredImage[channel][column + 1][row + 1] = clamp((1.0 / 16.0) * errorVal
-              + this.ditheredImage[channel][column + 1][row + 1]);
+    if (column + 1 < this.width && row + 1 < this.height) {
+      this.ditheredPlane[index + this.width + 1] = clamp((1.0 / 16.0) * errorVal
+              + this.ditheredPlane[index + this.width + 1]);
     }
 
   }
@@ -0,0 +1,66 @@
+package model.dither;
+
+import model.image.GreyImage;
+import model.image.Image;
+import model.image.Images;
+import model.image.WritableImage;
+
+/**
+ * <p>Receives the dithered rows of an image. The rows are kept in a {@link GreyImage}, unless the
+ * image being dithered is stored outside of the heap, in which case they are written into an
+ * image created by {@link Images#createCompatible} so that the result does not need the heap
+ * either. Different rows may be written at the same time by different threads.</p>
+ */
+final class DitherOutput {
+
+  private final GreyImage greyImage;
+  private final WritableImage writableImage;
+
+  /**
+   * <p>Creates the output for dithering the given image.</p>
+   *
+   * @param source the image being dithered
+   */
+  DitherOutput(Image source) {
+    if (Images.isOutOfCore(source)) {
+      this.greyImage = null;
+      this.writableImage = Images.createCompatible(source, source.getWidth(),
+              source.getHeight());
+    } else {
+      this.greyImage = new GreyImage(source.getWidth(), source.getHeight());
+      this.writableImage = null;
+    }
+  }
+
+  /**
+   * <p>Writes a dithered row, reading {@code getWidth()} grey values from the buffer starting at
+   * the given offset.</p>
+   *
+   * @param row    the row of the image
+   * @param values the buffer holding the grey values of the row
+   * @param offset the position in the buffer of the first value
+   */
+  void setRow(int row, int[] values, int offset) {
+    if (this.greyImage != null) {
+      this.greyImage.setGreyRow(row, values, offset);
+      return;
+    }
+    int width = this.writableImage.getWidth();
+    int[] rgbRow = new int[width * 3];
+    for (int i = 0; i < width; i++) {
+      rgbRow[i * 3] = values[offset + i];
+      rgbRow[i * 3 + 1] = values[offset + i];
+      rgbRow[i * 3 + 2] = values[offset + i];
+    }
+    this.writableImage.setRowRGB(row, rgbRow, 0);
+  }
+
+  /**
+   * <p>Returns the image holding the dithered rows.</p>
+   *
+   * @return the dithered image
+   */
+  Image getImage() {
+    return this.greyImage != null ? this.greyImage : this.writableImage;
+  }
+}
@@ -0,0 +1,48 @@
+package model.dither;
+
+/**
+ * <p>Computes the luminance of pixels, using the same weights and arithmetic as the
+ * {@link model.tranformations.GreyscaleTransform}, so a luminance computed here equals the value
+ * of the greyscale image at that pixel.</p>
+ */
+final class Luminance {
+
+  private static final double[] RED_TABLE = createTable(0.2126);
+  private static final double[] GREEN_TABLE = createTable(0.7152);
+  private static final double[] BLUE_TABLE = createTable(0.0722);
+
+  private Luminance() {
+    // Only has static methods.
+  }
+
+  /**
+   * <p>Computes the luminance of the pixels stored interleaved in {@code rgbRow} into
+   * {@code luminanceRow}, one value per pixel.</p>
+   *
+   * @param rgbRow       the red, green and blue values of each pixel
+   * @param luminanceRow the buffer that receives the luminance of each pixel
+   * @param offset       the position in {@code luminanceRow} of the first luminance
+   * @param pixelCount   the number of pixels
+   */
+  static void toLuminance(int[] rgbRow, int[] luminanceRow, int offset, int pixelCount) {
+    for (int i = 0; i < pixelCount; i++) {
+      double luminance = RED_TABLE[rgbRow[i * 3]] + GREEN_TABLE[rgbRow[i * 3 + 1]]
+              + BLUE_TABLE[rgbRow[i * 3 + 2]];
+      luminanceRow[offset + i] = luminance > 255 ? 255 : (int) luminance;
+    }
+  }
+
+  /**
+   * <p>Creates the table of the products of the weight with every value between [0, 255].</p>
+   *
+   * @param weight the weight of a channel
+   * @return the table of products
+   */
+  private static double[] createTable(double weight) {
+    double[] table = new double[256];
+    for (int value = 0; value < 256; value++) {
+      table[value] = weight * value;
+    }
+    return table;
+  }
+}
@@ -0,0 +1,161 @@
+package model.dither;
+
+import java.util.Arrays;
+
+import model.Cacheable;
+import model.image.Image;
+import model.parallel.RowBands;
+import model.progress.ProgressMonitor;
+
+/**
+ * <p>This class implements {@link Dither}. It dithers an image by comparing the luminance of each
+ * pixel with a threshold taken from a tile of thresholds repeated over the image, which is either
+ * a Bayer matrix or a tile such as the blue-noise tile of {@link BlueNoise}. No error is carried
+ * between pixels, so every pixel is independent and the rows are dithered in parallel.</p>
+ */
+public class OrderedDitherImpl implements Dither, Cacheable {
+
+  private final int[][] thresholds;
+  private final int parallelism;
+
+  /**
+   * <p>Creates an ordered ditherer that uses a Bayer matrix of the given size.</p>
+   *
+   * @param matrixSize the size of the Bayer matrix, one of 2, 4, 8 or 16
+   * @throws IllegalArgumentException if the matrix size is not one of 2, 4, 8 or 16
+   */
+  public OrderedDitherImpl(int matrixSize) throws IllegalArgumentException {
+    this(matrixSize, RowBands.defaultParallelism());
+  }
+
+  /**
+   * <p>Creates an ordered ditherer that uses a Bayer matrix of the given size and at most the
+   * given number of threads.</p>
+   *
+   * @param matrixSize  the size of the Bayer matrix, one of 2, 4, 8 or 16
+   * @param parallelism the maximum number of threads used to dither an image
+   * @throws IllegalArgumentException if the matrix size is not one of 2, 4, 8 or 16 or the
+   *                                  parallelism is less than 1
+   */
+  public OrderedDitherImpl(int matrixSize, int parallelism) throws IllegalArgumentException {
+    if (matrixSize != 2 && matrixSize != 4 && matrixSize != 8 && matrixSize != 16) {
+      throw new IllegalArgumentException("matrix size should be one of 2, 4, 8 or 16.");
+    }
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism should be greater than 0.");
+    }
+    int[][] bayer = createBayerMatrix(matrixSize);
+    this.thresholds = new int[matrixSize][matrixSize];
+    for (int i = 0; i < matrixSize; i++) {
+      for (int j = 0; j < matrixSize; j++) {
+        this.thresholds[i][j] = (2 * bayer[i][j] + 1) * 128 / (matrixSize * matrixSize);
+      }
+    }
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * <p>Creates an ordered ditherer that uses the given tile, such as the tile of {@link
+   * BlueNoise}, as its thresholds. The red channel of each pixel of the tile is the threshold a
+   * luminance has to exceed to become white.</p>
+   *
+   * @param thresholdTile the tile of thresholds repeated over the image
+   * @throws IllegalArgumentException if the tile is null
+   */
+  public OrderedDitherImpl(Image thresholdTile) throws IllegalArgumentException {
+    this(thresholdTile, RowBands.defaultParallelism());
+  }
+
+  /**
+   * <p>Creates an ordered ditherer that uses the given tile, such as the tile of {@link
+   * BlueNoise}, as its thresholds, and at most the given number of threads. The red channel of
+   * each pixel of the tile is the threshold a luminance has to exceed to become white.</p>
+   *
+   * @param thresholdTile the tile of thresholds repeated over the image
+   * @param parallelism   the maximum number of threads used to dither an image
+   * @throws IllegalArgumentException if the tile is null or the parallelism is less than 1
+   */
+  public OrderedDitherImpl(Image thresholdTile, int parallelism) throws IllegalArgumentException {
+    if (thresholdTile == null) {
+      throw new IllegalArgumentException("invalid threshold tile.");
+    }
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism should be greater than 0.");
+    }
+    this.thresholds = new int[thresholdTile.getHeight()][thresholdTile.getWidth()];
+    for (int i = 0; i < thresholdTile.getHeight(); i++) {
+      thresholdTile.getRow(0, i, this.thresholds[i], 0);
+    }
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * <p>Returns a key made of the tile of thresholds, which is all the result depends on.</p>
+   *
+   * @return the key of the ditherer
+   */
+  @Override
+  public String getCacheKey() {
+    return "ordered-dither " + Arrays.deepToString(this.thresholds);
+  }
+
+  @Override
+  public Image dither(Image image) {
+    int height = image.getHeight();
+    int width = image.getWidth();
+    DitherOutput result = new DitherOutput(image);
+
+    // Repeat each row of the tile across the width of the image once, so the comparison below is
+    // a plain element by element loop.
+    int tileHeight = this.thresholds.length;
+    int tileWidth = this.thresholds[0].length;
+    int[][] thresholdRows = new int[tileHeight][width];
+    for (int i = 0; i < tileHeight; i++) {
+      for (int j = 0; j < width; j++) {
+        thresholdRows[i][j] = this.thresholds[i][j % tileWidth];
+      }
+    }
+
+    ProgressMonitor.current().begin(height);
+    RowBands.run(width, height, this.parallelism, (startRow, endRow) -> {
+      int[] rgbRow = new int[width * 3];
+      int[] row = new int[width];
+      for (int i = startRow; i < endRow; i++) {
+        image.getRowRGB(i, rgbRow, 0);
+        Luminance.toLuminance(rgbRow, row, 0, width);
+        int[] thresholdRow = thresholdRows[i % tileHeight];
+        for (int j = 0; j < width; j++) {
+          row[j] = row[j] > thresholdRow[j] ? 255 : 0;
+        }
+        result.setRow(i, row, 0);
+      }
+    });
+    return result.getImage();
+  }
+
+  /**
+   * <p>Creates the Bayer index matrix of the given size, holding each value from 0 up to but not
+   * including {@code size * size} once. The matrix of size 2n is built from the matrix of size n
+   * by repeating it in the four quadrants.</p>
+   *
+   * @param size the size of the matrix, a power of two
+   * @return the Bayer index matrix
+   */
+  private static int[][] createBayerMatrix(int size) {
+    int[][] matrix = {{0}};
+    for (int n = 1; n < size; n *= 2) {
+      int[][] larger = new int[n * 2][n * 2];
+      for (int i = 0; i < n; i++) {
+        for (int j = 0; j < n; j++) {
+          int value = matrix[i][j] * 4;
+          larger[i][j] = value;
+          larger[i][j + n] = value + 2;
+          larger[i + n][j] = value + 3;
+          larger[i + n][j + n] = value + 1;
+        }
+      }
+      matrix = larger;
+    }
+    return matrix;
+  }
+}
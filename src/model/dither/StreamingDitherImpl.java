@@ -0,0 +1,115 @@
+package model.dither;
+
+import model.Cacheable;
+import model.image.Image;
+import model.progress.ProgressMonitor;
+
+/**
+ * <p>This class implements {@link Dither}. It dithers an image using the same Floyd–Steinberg
+ * error diffusion as {@link DitherImpl} and gives exactly the same result, but streams the image
+ * through a window of three rows instead of keeping a working copy of the whole image. Its
+ * working memory only grows with the width of the image.</p>
+ *
+ * <p>The error of a pixel is pushed into the next pixel of the row above, the current row and
+ * the row below, so a row is only finished, and written to the result, once the row after it has
+ * been processed.</p>
+ */
+public class StreamingDitherImpl implements Dither, Cacheable {
+
+  @Override
+  public String getCacheKey() {
+    return DitherImpl.CACHE_KEY;
+  }
+
+  @Override
+  public Image dither(Image image) {
+    int height = image.getHeight();
+    int width = image.getWidth();
+    DitherOutput result = new DitherOutput(image);
+    int[] rgbRow = new int[width * 3];
+    int[] previous = new int[width];
+    int[] current = new int[width];
+    int[] next = new int[width];
+
+    ProgressMonitor monitor = ProgressMonitor.current();
+    monitor.begin(height);
+    readLuminance(image, 0, rgbRow, current);
+    if (height > 1) {
+      readLuminance(image, 1, rgbRow, next);
+    }
+    for (int row = 0; row < height; row++) {
+      ditherRow(row > 0 ? previous : null, current, row + 1 < height ? next : null);
+      if (row > 0) {
+        result.setRow(row - 1, previous, 0);
+      }
+      int[] finished = previous;
+      previous = current;
+      current = next;
+      next = finished;
+      if (row + 2 < height) {
+        readLuminance(image, row + 2, rgbRow, next);
+      }
+      monitor.worked(1);
+    }
+    result.setRow(height - 1, previous, 0);
+    return result.getImage();
+  }
+
+  /**
+   * <p>Reads the luminance of a row of the image into the buffer.</p>
+   *
+   * @param image     the image to be dithered
+   * @param row       the row to be read
+   * @param rgbRow    a buffer for the red, green and blue values of the row
+   * @param luminance the buffer that receives the luminance of the row
+   */
+  private void readLuminance(Image image, int row, int[] rgbRow, int[] luminance) {
+    image.getRowRGB(row, rgbRow, 0);
+    Luminance.toLuminance(rgbRow, luminance, 0, luminance.length);
+  }
+
+  /**
+   * <p>Turns every pixel of the current row black or white and diffuses its error into the
+   * neighbouring pixels, in the same order and with the same clamping as {@link DitherImpl}.</p>
+   *
+   * @param previous the row above the current row, or null for the first row
+   * @param current  the row being dithered
+   * @param next     the row below the current row, or null for the last row
+   */
+  static void ditherRow(int[] previous, int[] current, int[] next) {
+    int width = current.length;
+    for (int column = 0; column < width; column++) {
+      int oldColor = current[column];
+      int newColor = oldColor > 127 ? 255 : 0;
+      int errorVal = oldColor - newColor;
+      current[column] = newColor;
+      if (column + 1 < width) {
+        current[column + 1] = clamp((5.0 / 16.0) * errorVal + current[column + 1]);
+        if (previous != null) {
+          previous[column + 1] = clamp((3.0 / 16.0) * errorVal + previous[column + 1]);
+        }
+      }
+      if (next != null) {
+        next[column] = clamp((7.0 / 16.0) * errorVal + next[column]);
+        if (column + 1 < width) {
+          next[column + 1] = clamp((1.0 / 16.0) * errorVal + next[column + 1]);
+        }
+      }
+    }
+  }
+
+  /**
+   * <p>Clamps the value of the pixel if it is greater than 255 or less than 0 or not integer.</p>
+   *
+   * @param value the value to be clamped
+   * @return the clamped value
+   */
+  private static int clamp(double value) {
+    if (value > 255) {
+      return 255;
+    } else if (value < 0) {
+      return 0;
+    }
+    return (int) value;
+  }
+}
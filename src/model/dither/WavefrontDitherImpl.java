@@ -0,0 +1,257 @@
+package model.dither;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import model.Cacheable;
+import model.image.Image;
+import model.parallel.RowBands;
+import model.progress.ProgressMonitor;
+
+/**
+ * <p>This class implements {@link Dither}. It dithers an image using the same Floyd–Steinberg
+ * error diffusion as {@link DitherImpl} and gives exactly the same result, but processes several
+ * rows at the same time in a staggered wavefront.</p>
+ *
+ * <p>A pixel only receives error from pixels to its left, from the two pixels above it and from
+ * the pixel above and to the left of the next row. Row {@code r} can therefore work on column
+ * {@code c} as soon as row {@code r - 1} has finished column {@code c + 1}. Each thread takes
+ * every n-th row and waits for the row above to be far enough ahead before each pixel. Rows are
+ * kept in a small ring of buffers and written to the result as soon as they are final.</p>
+ */
+public class WavefrontDitherImpl implements Dither, Cacheable {
+
+  private static final int PROGRESS_STEP = 32;
+  private static final int SPINS_BEFORE_YIELD = 64;
+
+  private final int parallelism;
+
+  /**
+   * <p>Creates a wavefront ditherer that uses as many threads as there are processors
+   * available.</p>
+   */
+  public WavefrontDitherImpl() {
+    this(RowBands.defaultParallelism());
+  }
+
+  /**
+   * <p>Creates a wavefront ditherer that uses at most the given number of threads. Images too
+   * small to be worth splitting are dithered on the calling thread.</p>
+   *
+   * @param parallelism the maximum number of threads used to dither an image
+   * @throws IllegalArgumentException if the parallelism is less than 1
+   */
+  public WavefrontDitherImpl(int parallelism) throws IllegalArgumentException {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism should be greater than 0.");
+    }
+    this.parallelism = parallelism;
+  }
+
+  @Override
+  public String getCacheKey() {
+    return DitherImpl.CACHE_KEY;
+  }
+
+  @Override
+  public Image dither(Image image) {
+    int height = image.getHeight();
+    int width = image.getWidth();
+    int threads = Math.min(this.parallelism, height);
+    if (threads < 2 || (long) width * height < RowBands.MIN_PARALLEL_PIXELS) {
+      return new StreamingDitherImpl().dither(image);
+    }
+
+    ProgressMonitor monitor = ProgressMonitor.current();
+    monitor.begin(height);
+    DitherOutput result = new DitherOutput(image);
+    Wavefront wavefront = new Wavefront(image, result, threads, monitor);
+    image.getRowRGB(0, wavefront.rgbRows[0], 0);
+    Luminance.toLuminance(wavefront.rgbRows[0], wavefront.rows[0], 0, width);
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> workers = new ArrayList<>();
+      for (int worker = 0; worker < threads; worker++) {
+        int firstRow = worker;
+        workers.add(executor.submit(() -> wavefront.ditherRows(firstRow)));
+      }
+      for (Future<?> worker : workers) {
+        worker.get();
+      }
+    } catch (ExecutionException e) {
+      wavefront.failed.set(true);
+      // The other threads fail once one of them stops because the operation was cancelled.
+      monitor.checkCancelled();
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      wavefront.failed.set(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("dithering interrupted.");
+    } finally {
+      executor.shutdownNow();
+    }
+    return result.getImage();
+  }
+
+  /**
+   * <p>The state shared by the threads dithering one image.</p>
+   */
+  private static class Wavefront {
+
+    private final Image image;
+    private final DitherOutput result;
+    private final int threads;
+    private final int width;
+    private final int height;
+    private final int[][] rows;
+    private final int[][] rgbRows;
+    private final AtomicIntegerArray progress;
+    private final AtomicBoolean failed;
+    private final ProgressMonitor monitor;
+
+    /**
+     * <p>Sets up the state for dithering the image into the result with the given number of
+     * threads.</p>
+     *
+     * @param image   the image to be dithered
+     * @param result  the image that receives the dithered rows
+     * @param threads the number of threads dithering the image
+     * @param monitor the monitor the finished rows are reported to
+     */
+    Wavefront(Image image, DitherOutput result, int threads, ProgressMonitor monitor) {
+      this.image = image;
+      this.result = result;
+      this.threads = threads;
+      this.width = image.getWidth();
+      this.height = image.getHeight();
+      // A row buffer is reused once its row is written out, which is after the next row is done.
+      this.rows = new int[threads + 2][this.width];
+      this.rgbRows = new int[threads][this.width * 3];
+      this.progress = new AtomicIntegerArray(this.height);
+      this.failed = new AtomicBoolean();
+      this.monitor = monitor;
+    }
+
+    /**
+     * <p>Dithers every n-th row starting from the given one, where n is the number of
+     * threads.</p>
+     *
+     * @param firstRow the first row dithered by the calling thread
+     */
+    void ditherRows(int firstRow) {
+      try {
+        for (int row = firstRow; row < height; row += threads) {
+          ditherRow(row, rgbRows[firstRow]);
+        }
+      } catch (RuntimeException e) {
+        failed.set(true);
+        throw e;
+      }
+    }
+
+    /**
+     * <p>Dithers one row, waiting before each pixel for the row above to be far enough ahead.
+     * Before starting the row the luminance of the row below is read, as the row below receives
+     * error from this row. Once the row is done the row above is final and written out.</p>
+     *
+     * @param row    the row to be dithered
+     * @param rgbRow a buffer for the red, green and blue values of a row
+     */
+    private void ditherRow(int row, int[] rgbRow) {
+      int[] previous = row > 0 ? rows[(row - 1) % rows.length] : null;
+      int[] current = rows[row % rows.length];
+      int[] next = row + 1 < height ? rows[(row + 1) % rows.length] : null;
+      if (next != null) {
+        image.getRowRGB(row + 1, rgbRow, 0);
+        Luminance.toLuminance(rgbRow, next, 0, width);
+      }
+
+      int available = previous == null ? width : 0;
+      for (int column = 0; column < width; column++) {
+        int needed = Math.min(column + 2, width);
+        if (available < needed) {
+          available = waitFor(row - 1, needed);
+        }
+        int oldColor = current[column];
+        int newColor = oldColor > 127 ? 255 : 0;
+        int errorVal = oldColor - newColor;
+        current[column] = newColor;
+        if (column + 1 < width) {
+          current[column + 1] = clamp((5.0 / 16.0) * errorVal + current[column + 1]);
+          if (previous != null) {
+            previous[column + 1] = clamp((3.0 / 16.0) * errorVal + previous[column + 1]);
+          }
+        }
+        if (next != null) {
+          next[column] = clamp((7.0 / 16.0) * errorVal + next[column]);
+          if (column + 1 < width) {
+            next[column + 1] = clamp((1.0 / 16.0) * errorVal + next[column + 1]);
+          }
+        }
+        if ((column + 1) % PROGRESS_STEP == 0 && column + 1 < width) {
+          progress.set(row, column + 1);
+        }
+      }
+
+      if (previous != null) {
+        result.setRow(row - 1, previous, 0);
+      }
+      if (next == null) {
+        result.setRow(row, current, 0);
+      }
+      progress.set(row, width);
+      monitor.worked(1);
+    }
+
+    /**
+     * <p>Waits until the given row has finished at least the given number of pixels.</p>
+     *
+     * @param row    the row waited for
+     * @param needed the number of pixels that must be finished
+     * @return the number of pixels the row has finished
+     * @throws IllegalStateException if another thread failed while waiting
+     */
+    private int waitFor(int row, int needed) throws IllegalStateException {
+      int spins = 0;
+      int available = progress.get(row);
+      while (available < needed) {
+        if (failed.get()) {
+          throw new IllegalStateException("dithering failed.");
+        }
+        if (++spins < SPINS_BEFORE_YIELD) {
+          Thread.onSpinWait();
+        } else {
+          Thread.yield();
+        }
+        available = progress.get(row);
+      }
+      return available;
+    }
+
+    /**
+     * <p>Clamps the value of the pixel if it is greater than 255 or less than 0 or not
+     * integer.</p>
+     *
+     * @param value the value to be clamped
+     * @return the clamped value
+     */
+    private static int clamp(double value) {
+      if (value > 255) {
+        return 255;
+      } else if (value < 0) {
+        return 0;
+      }
+      return (int) value;
+    }
+  }
+}
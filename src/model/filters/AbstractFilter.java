@@ -1,21 +1,94 @@
 package model.filters;
 
+import java.util.Arrays;
+
+import model.Cacheable;
 import model.image.Image;
-import model.image.SimpleImage;
+import model.image.Images;
+import model.image.WritableImage;
+import model.parallel.RowBands;
+import model.progress.ProgressMonitor;
 
 /**
  * <p>This class implements the filter interface. Represents an abstract filter that applies a
  * filter of specified type using a kernel on an image.</p>
  */
-public abstract class AbstractFilter implements Filter {
+public abstract class AbstractFilter implements Filter, Cacheable {
+
+  private static final double SEPARABLE_TOLERANCE = 1e-12;
 
   protected double[][] kernel;
+  private final int parallelism;
+  private final double[] verticalKernel;
+  private final double[] horizontalKernel;
 
   /**
-   * <p>Constructor that takes a kernel that represents the type of filtering to be applied.</p>
+   * <p>Constructor that takes a kernel that represents the type of filtering to be applied. The
+   * filter uses as many threads as there are processors available.</p>
    */
   protected AbstractFilter(double[][] kernel) {
+    this(kernel, RowBands.defaultParallelism());
+  }
+
+  /**
+   * <p>Constructor that takes a kernel that represents the type of filtering to be applied and the
+   * maximum number of threads the filter can use. Images too small to be worth splitting are
+   * always filtered on the calling thread.</p>
+   *
+   * @param kernel      the kernel of the filter
+   * @param parallelism the maximum number of threads used to filter an image
+   * @throws IllegalArgumentException if the parallelism is less than 1
+   */
+  protected AbstractFilter(double[][] kernel, int parallelism) throws IllegalArgumentException {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism should be greater than 0.");
+    }
     this.kernel = kernel;
+    this.parallelism = parallelism;
+    this.verticalKernel = null;
+    this.horizontalKernel = null;
+  }
+
+  /**
+   * <p>Constructor for a separable filter, whose kernel is the outer product of a vertical and a
+   * horizontal one dimensional kernel. Such a filter is applied as a horizontal pass followed by a
+   * vertical pass, which takes {@code 2k} instead of {@code k * k} multiplications per pixel.</p>
+   *
+   * @param verticalKernel   the kernel applied along each column
+   * @param horizontalKernel the kernel applied along each row
+   * @param parallelism      the maximum number of threads used to filter an image
+   * @throws IllegalArgumentException if the kernels are null, empty or not of the same length or
+   *                                  the parallelism is less than 1
+   */
+  protected AbstractFilter(double[] verticalKernel, double[] horizontalKernel, int parallelism)
+          throws IllegalArgumentException {
+    if (verticalKernel == null || horizontalKernel == null || verticalKernel.length == 0
+            || verticalKernel.length != horizontalKernel.length) {
+      throw new IllegalArgumentException("kernels should be of the same length.");
+    }
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism should be greater than 0.");
+    }
+    int kernelSize = verticalKernel.length;
+    this.kernel = new double[kernelSize][kernelSize];
+    for (int i = 0; i < kernelSize; i++) {
+      for (int j = 0; j < kernelSize; j++) {
+        this.kernel[i][j] = verticalKernel[i] * horizontalKernel[j];
+      }
+    }
+    this.parallelism = parallelism;
+    this.verticalKernel = verticalKernel.clone();
+    this.horizontalKernel = horizontalKernel.clone();
+  }
+
+  /**
+   * <p>Returns a key made of the kernel of the filter, which is all its result depends on.</p>
+   *
+   * @return the key of the filter
+   */
+  @Override
+  public String getCacheKey() {
+    return "filter " + Arrays.deepToString(this.kernel);
   }
 
   @Override
@@ -25,44 +98,254 @@ public abstract class AbstractFilter implements Filter {
     }
     int height = image.getHeight();
     int width = image.getWidth();
-    int[][][] filteredImage = new int[3][width][height];
+    WritableImage filteredImage = Images.createCompatible(image, width, height);
+    double[][] separated = this.horizontalKernel == null ? separate(this.kernel)
+            : new double[][]{this.verticalKernel, this.horizontalKernel};
+    ProgressMonitor.current().begin(height);
+    if (separated == null) {
+      RowBands.run(width, height, this.parallelism,
+              (startRow, endRow) -> filterRows(image, filteredImage, startRow, endRow));
+    } else {
+      RowBands.run(width, height, this.parallelism,
+              (startRow, endRow) -> filterRowsSeparable(image, filteredImage, separated[0],
+                      separated[1], startRow, endRow));
+    }
+    return filteredImage;
+  }
+
+  /**
+   * <p>Applies the kernel to every pixel in the rows from {@code startRow} up to but not including
+   * {@code endRow} and writes the results into the same rows of the filtered image. Only the
+   * rows of the image that the kernel can reach are read.</p>
+   *
+   * <p>Pixels whose kernel lies completely inside the image are filtered a kernel tap at a time
+   * over the whole row without any bounds checks. Only the pixels within half a kernel of the
+   * edges go through {@code applyKernelToPixel}.</p>
+   *
+   * @param image         the image to be filtered
+   * @param filteredImage the image into which the filtered rows are written
+   * @param startRow      the first row to be filtered
+   * @param endRow        the row after the last row to be filtered
+   */
+  private void filterRows(Image image, WritableImage filteredImage, int startRow, int endRow) {
+    int kernelSize = this.kernel.length;
+    int kernelCenter = kernelSize / 2;
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int firstRow = Math.max(0, startRow - kernelCenter);
+    int lastRow = Math.min(height, endRow + kernelCenter);
+    int interiorStart = Math.min(kernelCenter, width);
+    int interiorEnd = Math.max(interiorStart, width - kernelCenter);
+    int[] source = new int[width * (lastRow - firstRow)];
+    double[] sums = new double[width];
+    int[] filteredRow = new int[width];
+
+    for (int channel = 0; channel < 3; channel++) {
+      image.getRegion(channel, 0, firstRow, width, lastRow - firstRow, source, 0);
+      for (int row = startRow; row < endRow; row++) {
+        if (row < kernelCenter || row + kernelCenter >= height || interiorStart == interiorEnd) {
+          for (int column = 0; column < width; column++) {
+            filteredRow[column] = applyKernelToPixel(source, width, firstRow, lastRow, column, row);
+          }
+        } else {
+          Arrays.fill(sums, interiorStart, interiorEnd, 0);
+          for (int i = 0; i < kernelSize; i++) {
+            int rowStart = (row - kernelCenter + i - firstRow) * width - kernelCenter;
+            for (int j = 0; j < kernelSize; j++) {
+              double weight = this.kernel[i][j];
+              int tapStart = rowStart + j;
+              for (int column = interiorStart; column < interiorEnd; column++) {
+                sums[column] += source[tapStart + column] * weight;
+              }
+            }
+          }
+          for (int column = interiorStart; column < interiorEnd; column++) {
+            filteredRow[column] = clamp(sums[column]);
+          }
+          for (int column = 0; column < interiorStart; column++) {
+            filteredRow[column] = applyKernelToPixel(source, width, firstRow, lastRow, column, row);
+          }
+          for (int column = interiorEnd; column < width; column++) {
+            filteredRow[column] = applyKernelToPixel(source, width, firstRow, lastRow, column, row);
+          }
+        }
+        filteredImage.setRow(channel, row, filteredRow, 0);
+      }
+    }
+  }
+
+  /**
+   * <p>Applies the kernel as a horizontal pass followed by a vertical pass to every pixel in the
+   * rows from {@code startRow} up to but not including {@code endRow} and writes the results into
+   * the same rows of the filtered image. The intermediate sums are kept unclamped so the result
+   * matches applying the full kernel.</p>
+   *
+   * <p>As in {@code filterRows}, the bounds of the image are only checked for the pixels within
+   * half a kernel of the edges.</p>
+   *
+   * @param image            the image to be filtered
+   * @param filteredImage    the image into which the filtered rows are written
+   * @param verticalKernel   the kernel applied along each column
+   * @param horizontalKernel the kernel applied along each row
+   * @param startRow         the first row to be filtered
+   * @param endRow           the row after the last row to be filtered
+   */
+  private void filterRowsSeparable(Image image, WritableImage filteredImage,
+                                   double[] verticalKernel, double[] horizontalKernel,
+                                   int startRow, int endRow) {
+    int kernelSize = horizontalKernel.length;
+    int kernelCenter = kernelSize / 2;
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int firstRow = Math.max(0, startRow - kernelCenter);
+    int lastRow = Math.min(height, endRow + kernelCenter);
+    int interiorStart = Math.min(kernelCenter, width);
+    int interiorEnd = Math.max(interiorStart, width - kernelCenter);
+    int[] source = new int[width * (lastRow - firstRow)];
+    double[] horizontalPass = new double[source.length];
+    double[] sums = new double[width];
+    int[] filteredRow = new int[width];
+
+    for (int channel = 0; channel < 3; channel++) {
+      image.getRegion(channel, 0, firstRow, width, lastRow - firstRow, source, 0);
+      Arrays.fill(horizontalPass, 0);
+      for (int row = 0; row < lastRow - firstRow; row++) {
+        int rowStart = row * width;
+        for (int j = 0; j < kernelSize; j++) {
+          double weight = horizontalKernel[j];
+          int tapStart = rowStart - kernelCenter + j;
+          for (int column = interiorStart; column < interiorEnd; column++) {
+            horizontalPass[rowStart + column] += source[tapStart + column] * weight;
+          }
+        }
+        for (int column = 0; column < interiorStart; column++) {
+          horizontalPass[rowStart + column] = applyHorizontalKernel(source, rowStart, width,
+                  column, horizontalKernel);
+        }
+        for (int column = interiorEnd; column < width; column++) {
+          horizontalPass[rowStart + column] = applyHorizontalKernel(source, rowStart, width,
+                  column, horizontalKernel);
+        }
+      }
+
+      for (int row = startRow; row < endRow; row++) {
+        Arrays.fill(sums, 0);
+        boolean interiorRow = row >= kernelCenter && row + kernelCenter < height;
+        for (int i = 0; i < kernelSize; i++) {
+          int rowOffset = row - kernelCenter + i;
+          if (!interiorRow && (rowOffset < firstRow || rowOffset >= lastRow)) {
+            continue;
+          }
+          double weight = verticalKernel[i];
+          int tapStart = (rowOffset - firstRow) * width;
+          for (int column = 0; column < width; column++) {
+            sums[column] += horizontalPass[tapStart + column] * weight;
+          }
+        }
+        for (int column = 0; column < width; column++) {
+          filteredRow[column] = clamp(sums[column]);
+        }
+        filteredImage.setRow(channel, row, filteredRow, 0);
+      }
+    }
+  }
+
+  /**
+   * <p>Applies the horizontal kernel to a pixel near the left or right edge of a row, leaving out
+   * the taps that fall outside the image.</p>
+   *
+   * @param source           the values of one channel, stored row by row
+   * @param rowStart         the position in the source of the first value of the row
+   * @param width            the width of the image
+   * @param pixelColumn      the column where the pixel is located
+   * @param horizontalKernel the kernel applied along each row
+   * @return the unclamped result of applying the kernel to the pixel
+   */
+  private double applyHorizontalKernel(int[] source, int rowStart, int width, int pixelColumn,
+                                       double[] horizontalKernel) {
+    int kernelCenter = horizontalKernel.length / 2;
+    double pixelFilter = 0;
+    for (int j = 0; j < horizontalKernel.length; j++) {
+      int columnOffset = pixelColumn - kernelCenter + j;
+      if (columnOffset >= 0 && columnOffset < width) {
+        pixelFilter += source[rowStart + columnOffset] * horizontalKernel[j];
+      }
+    }
+    return pixelFilter;
+  }
 
-    for (int i = 0; i < width; i++) {
-      for (int j = 0; j < height; j++) {
-        filteredImage[0][i][j] = applyKernelToPixel(0, i, j, image);
-        filteredImage[1][i][j] = applyKernelToPixel(1, i, j, image);
-        filteredImage[2][i][j] = applyKernelToPixel(2, i, j, image);
+  /**
+   * <p>Splits a square kernel into a vertical and a horizontal kernel whose outer product is the
+   * given kernel, if the kernel has rank one.</p>
+   *
+   * @param kernel the kernel to be split
+   * @return the vertical and horizontal kernel, or null if the kernel cannot be split
+   */
+  private static double[][] separate(double[][] kernel) {
+    int kernelSize = kernel.length;
+    int pivotRow = 0;
+    int pivotColumn = 0;
+    for (int i = 0; i < kernelSize; i++) {
+      if (kernel[i].length != kernelSize) {
+        return null;
       }
+      for (int j = 0; j < kernelSize; j++) {
+        if (Math.abs(kernel[i][j]) > Math.abs(kernel[pivotRow][pivotColumn])) {
+          pivotRow = i;
+          pivotColumn = j;
+        }
+      }
+    }
+    double pivot = kernel[pivotRow][pivotColumn];
+    if (kernelSize < 2 || pivot == 0) {
+      return null;
     }
 
-    return new SimpleImage(filteredImage);
+    double[] verticalKernel = new double[kernelSize];
+    double[] horizontalKernel = kernel[pivotRow].clone();
+    for (int i = 0; i < kernelSize; i++) {
+      verticalKernel[i] = kernel[i][pivotColumn] / pivot;
+    }
+    for (int i = 0; i < kernelSize; i++) {
+      for (int j = 0; j < kernelSize; j++) {
+        if (Math.abs(verticalKernel[i] * horizontalKernel[j] - kernel[i][j])
+                > Math.abs(pivot) * SEPARABLE_TOLERANCE) {
+          return null;
+        }
+      }
+    }
+    return new double[][]{verticalKernel, horizontalKernel};
   }
 
   /**
    * <p>Applies the kernel to a specific pixel, clamps the value and returns its value that is the
    * result of applying the kernel.</p>
    *
-   * @param channel     the channel on which the kernel is to be applied.
+   * @param source      the values of one channel of the rows from {@code firstRow} up to but not
+   *                    including {@code lastRow}, stored row by row
+   * @param width       the width of the image
+   * @param firstRow    the row of the image stored first in the source
+   * @param lastRow     the row after the last row stored in the source
    * @param pixelColumn the column where the pixel is located
    * @param pixelRow    the row where the pixel is located
    * @return the result of applying the kernel to the pixel
    */
-  private int applyKernelToPixel(int channel, int pixelColumn, int pixelRow, Image image) {
+  private int applyKernelToPixel(int[] source, int width, int firstRow, int lastRow,
+                                 int pixelColumn, int pixelRow) {
     int kernelSize = this.kernel.length;
     int kernelCenter = kernelSize / 2;
-    int height = image.getHeight();
-    int width = image.getWidth();
 
     double pixelFilter = 0;
     for (int i = 0; i < kernelSize; i++) {
+      int rowOffset = pixelRow - kernelCenter + i;
+      if (rowOffset < firstRow || rowOffset >= lastRow) {
+        continue;
+      }
+      int rowStart = (rowOffset - firstRow) * width;
       for (int j = 0; j < kernelSize; j++) {
-        int rowOffset = pixelRow - kernelCenter + i;
         int columnOffset = pixelColumn - kernelCenter + j;
-        if (rowOffset < 0 || columnOffset < 0 || rowOffset >= height || columnOffset >= width) {
-          pixelFilter += 0;
-        } else {
-          pixelFilter += image.getPixelValue(channel, columnOffset, rowOffset)
-                  * kernel[i][j];
+        if (columnOffset >= 0 && columnOffset < width) {
+          pixelFilter += source[rowStart + columnOffset] * kernel[i][j];
         }
       }
     }
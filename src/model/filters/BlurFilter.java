@@ -1,5 +1,7 @@
 package model.filters;
 
+import model.parallel.RowBands;
+
 /**
  * <p>This class extends the {@link AbstractFilter}. Given an image this class can be used to blur
  * an image using a specific type of kernel.</p>
@@ -7,13 +9,22 @@ package model.filters;
 public class BlurFilter extends AbstractFilter {
 
   /**
-   * <p>Initializes the blur filter kernel that will blur the image.</p>
+   * <p>Initializes the blur filter kernel that will blur the image. The kernel is the outer product
+   * of {0.25, 0.5, 0.25} with itself, so it is applied as two one dimensional passes.</p>
    */
   public BlurFilter() {
-    super(new double[3][3]);
-    super.kernel[0] = new double[]{0.0625, 0.125, 0.0625};
-    super.kernel[1] = new double[]{0.125, 0.25, 0.125};
-    super.kernel[2] = new double[]{0.0625, 0.125, 0.0625};
+    this(RowBands.defaultParallelism());
+  }
+
+  /**
+   * <p>Initializes the blur filter kernel that will blur the image using at most the given number
+   * of threads.</p>
+   *
+   * @param parallelism the maximum number of threads used to blur an image
+   * @throws IllegalArgumentException if the parallelism is less than 1
+   */
+  public BlurFilter(int parallelism) throws IllegalArgumentException {
+    super(new double[]{0.25, 0.5, 0.25}, new double[]{0.25, 0.5, 0.25}, parallelism);
   }
 
 }
@@ -1,5 +1,7 @@
 package model.filters;
 
+import model.parallel.RowBands;
+
 /**
  * <p>This class extends the {@link AbstractFilter} class. It represents a class that can sharpen
  * an image using a sharpen filter kernel using kernel of specific type.</p>
@@ -10,7 +12,18 @@ public class SharpenFilter extends AbstractFilter {
    * <p>Constructor to initialize the sharpen kernel that will sharpen the image.</p>
    */
   public SharpenFilter() {
-    super(new double[5][5]);
+    this(RowBands.defaultParallelism());
+  }
+
+  /**
+   * <p>Constructor to initialize the sharpen kernel that will sharpen the image using at most the
+   * given number of threads.</p>
+   *
+   * @param parallelism the maximum number of threads used to sharpen an image
+   * @throws IllegalArgumentException if the parallelism is less than 1
+   */
+  public SharpenFilter(int parallelism) throws IllegalArgumentException {
+    super(new double[5][5], parallelism);
     super.kernel[0] = new double[]{-0.125, -0.125, -0.125, -0.125, -0.125};
     super.kernel[1] = new double[]{-0.125, 0.25, 0.25, 0.25, -0.125};
     super.kernel[2] = new double[]{-0.125, 0.25, 1, 0.25, -0.125};
@@ -1,12 +1,20 @@
 package model.generateshapes;
 
+import java.util.Arrays;
+
+import model.image.Image;
+import model.image.ProceduralImage;
+import model.image.RunLengthEncoded;
+
 /**
- * <p>This class implements the {@link GeneratePattern} interface. It has methods that can be used
- * by the subclasses to generate patterns of various kinds.</p>
+ * <p>This class implements the {@link GeneratePattern} interface. The patterns are generated as
+ * {@link ProceduralImage}s, so the color of each pixel is computed from its location by the
+ * subclass only when the image is read, and no memory is used for the pixels until then.</p>
  */
 abstract class AbstractPatternGenerate implements GeneratePattern {
 
-  protected int[][][] finalImage;
+  private final int width;
+  private final int height;
 
   /**
    * <p>Constructor to initialize the dimensions of the image to be generated.</p>
@@ -19,72 +27,91 @@ abstract class AbstractPatternGenerate implements GeneratePattern {
     if (width < 1 || height < 1) {
       throw new IllegalArgumentException("Height and width should be greater than 1.");
     }
-    this.finalImage = new int[3][width][height];
+    this.width = width;
+    this.height = height;
   }
 
   /**
-   * <p>Creates a colored image patch of the given height,width and color. </p>
+   * <p>Returns the color of the pattern at the given location.</p>
    *
-   * @param height   the height of the patch
-   * @param width    the width of the patch
-   * @param rgbColor the color of the patch, where the 0 index represents red, 1st index green and
-   *                 2nd index blue.
-   * @return the image patch with the given color height and width
-   * @throws IllegalArgumentException if the height or width of patch is less than 1 or length of
-   *                                  rgbColor is not 0.
+   * @param column the column of the pixel, between 0 and the width of the image
+   * @param row    the row of the pixel, between 0 and the height of the image
+   * @return the color of the pixel packed as {@code 0xRRGGBB}
    */
-  protected int[][][] createColoredPatch(int height, int width, int[] rgbColor)
-          throws IllegalArgumentException {
-
-    if (height < 1 || width < 1 || rgbColor.length != 3) {
-      throw new IllegalArgumentException("Invalid height and width, must be greater than 0 and "
-              + "should provide three colors.");
-    }
+  protected abstract int getColor(int column, int row);
 
-    int[][][] patch = new int[3][width][height];
+  /**
+   * <p>Returns the width of the runs of equal color that every row of the pattern is made of,
+   * starting from the first column. Rows are filled one run at a time.</p>
+   *
+   * @return the width of the runs of equal color
+   */
+  protected abstract int getRunWidth();
 
-    for (int i = 0; i < width; i++) {
-      for (int j = 0; j < height; j++) {
-        patch[0][i][j] = rgbColor[0];
-        patch[1][i][j] = rgbColor[1];
-        patch[2][i][j] = rgbColor[2];
-      }
-    }
+  /**
+   * <p>Packs the given color into a single value.</p>
+   *
+   * @param red   the red value of the color
+   * @param green the green value of the color
+   * @param blue  the blue value of the color
+   * @return the color packed as {@code 0xRRGGBB}
+   */
+  protected static int rgb(int red, int green, int blue) {
+    return red << 16 | green << 8 | blue;
+  }
 
-    return patch;
+  @Override
+  public Image generate() {
+    return new PatternImage();
   }
 
   /**
-   * Applies the {@code patch} on the image that is to be generated at the specified index.
-   *
-   * @param startRow    the starting row index of the image where the patch is to applied.
-   * @param endRow      the ending row index of the image where the patch is to applied.
-   * @param startColumn the starting column index of the image where the patch is to applied.
-   * @param endColumn   the starting column index of the image where the patch is to applied.
-   * @param patch       the {@code patch} to be applied
-   * @throws IllegalArgumentException if startRow or endRow is less than 0 or if endRow or endColumn
-   *                                  is less than start and end and patch is not in image format.
+   * <p>The image of the pattern. Its pixels are computed by the generator when read, and as every
+   * row is made of runs of equal color of the width given by the generator, it also gives the
+   * rows as runs so that operations on colors only need to work on each run once.</p>
    */
-  protected void applyPatchOnImage(int startRow, int endRow, int startColumn, int endColumn,
-                                   int[][][] patch)
-          throws IllegalArgumentException {
+  private class PatternImage extends ProceduralImage implements RunLengthEncoded {
+
+    private PatternImage() {
+      super(width, height);
+    }
 
-    if (startRow < 0 || endRow < startRow || startColumn < 0 || endColumn < startColumn
-            || patch.length != 3) {
-      throw new IllegalArgumentException("invalid inputs");
+    @Override
+    protected int getColor(int column, int row) {
+      return AbstractPatternGenerate.this.getColor(column, row);
     }
 
-    int patchY = 0;
-    for (int j = startRow; j < endRow; j++) {
-      int patchX = 0;
-      for (int k = startColumn; k < endColumn; k++) {
-        this.finalImage[0][j][k] = patch[0][patchY][patchX];
-        this.finalImage[1][j][k] = patch[1][patchY][patchX];
-        this.finalImage[2][j][k] = patch[2][patchY][patchX];
-        patchX++;
+    @Override
+    protected void fillRow(int row, int[] colors, int offset) {
+      int runWidth = getRunWidth();
+      int width = getWidth();
+      for (int start = 0; start < width; start += runWidth) {
+        int end = Math.min(start + runWidth, width);
+        Arrays.fill(colors, offset + start, offset + end, getColor(start, row));
       }
-      patchY++;
     }
-  }
 
+    @Override
+    public int getRunCount(int row) throws IllegalArgumentException {
+      if (row < 0 || row >= getHeight()) {
+        throw new IllegalArgumentException("row not present in the image, invalid location.");
+      }
+      return (getWidth() + getRunWidth() - 1) / getRunWidth();
+    }
+
+    @Override
+    public int getRuns(int row, int[] runEnds, int[] colors) throws IllegalArgumentException {
+      int runCount = getRunCount(row);
+      if (runEnds == null || colors == null || runEnds.length < runCount
+              || colors.length < runCount) {
+        throw new IllegalArgumentException("buffer too small for the runs.");
+      }
+      int runWidth = getRunWidth();
+      for (int run = 0; run < runCount; run++) {
+        runEnds[run] = Math.min((run + 1) * runWidth, getWidth());
+        colors[run] = getColor(run * runWidth, row);
+      }
+      return runCount;
+    }
+  }
 }
@@ -1,8 +1,5 @@
 package model.generateshapes;
 
-import model.image.Image;
-import model.image.SimpleImage;
-
 /**
  * This class extends the {@link AbstractPatternGenerate} class. It creates a checkerboard with the
  * user specified square size.
@@ -26,28 +23,15 @@ public class CheckerBoard extends AbstractPatternGenerate {
   }
 
   @Override
-  public Image generate() {
-    int startHeight = 0;
-    int startWidth = 0;
-    int trackColor = 1;
-    for (int i = 1; i <= 64; i++) {
-      int[] color;
-      if (trackColor % 2 != 0) {
-        color = new int[]{255, 255, 255};
-      } else {
-        color = new int[]{0, 0, 0};
-      }
-      int[][][] getPatch = createColoredPatch(this.squareSize, this.squareSize, color);
-      applyPatchOnImage(startWidth, startWidth + this.squareSize, startHeight,
-              startHeight + this.squareSize, getPatch);
-      if (i % 8 == 0) {
-        startHeight += this.squareSize;
-        startWidth = 0;
-      } else {
-        startWidth += this.squareSize;
-        trackColor++;
-      }
+  protected int getColor(int column, int row) {
+    if ((column / this.squareSize + row / this.squareSize) % 2 == 0) {
+      return rgb(255, 255, 255);
     }
-    return new SimpleImage(super.finalImage);
+    return rgb(0, 0, 0);
+  }
+
+  @Override
+  protected int getRunWidth() {
+    return this.squareSize;
   }
 }
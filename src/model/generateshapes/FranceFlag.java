@@ -1,8 +1,5 @@
 package model.generateshapes;
 
-import model.image.Image;
-import model.image.SimpleImage;
-
 /**
  * This class extends the {@link AbstractPatternGenerate} class. It creates a france flag of the
  * user specified size.
@@ -10,7 +7,6 @@ import model.image.SimpleImage;
 public class FranceFlag extends AbstractPatternGenerate {
 
   private int length;
-  private int height;
 
   /**
    * Constructor to initialize the flag size of france. Given the length of the flag, it adjusts the
@@ -25,25 +21,22 @@ public class FranceFlag extends AbstractPatternGenerate {
       throw new IllegalArgumentException("length should be in multiples of 3.");
     }
     this.length = length;
-    this.height = length / 3 * 2;
   }
 
   @Override
-  public Image generate() {
-    int[][] colors = new int[3][3];
-    colors[0] = new int[]{0, 0, 255};
-    colors[1] = new int[]{255, 255, 255};
-    colors[2] = new int[]{255, 0, 0};
-    int lengthOfEachStripe = this.length / 3;
-    int startY = 0;
-
-    for (int i = 0; i < 3; i++) {
-      int[][][] patch = createColoredPatch(this.height, lengthOfEachStripe, colors[i]);
-      applyPatchOnImage(startY, startY + lengthOfEachStripe, 0, this.height, patch);
-      startY += lengthOfEachStripe;
+  protected int getColor(int column, int row) {
+    int stripe = column / (this.length / 3);
+    if (stripe == 0) {
+      return rgb(0, 0, 255);
+    } else if (stripe == 1) {
+      return rgb(255, 255, 255);
     }
-    return new SimpleImage(finalImage);
+    return rgb(255, 0, 0);
   }
 
-}
+  @Override
+  protected int getRunWidth() {
+    return this.length / 3;
+  }
 
+}
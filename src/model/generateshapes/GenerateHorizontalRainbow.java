@@ -1,14 +1,14 @@
 package model.generateshapes;
 
-import model.image.Image;
-import model.image.SimpleImage;
-
 /**
  * <p>This class extends the {@link AbstractPatternGenerate} class. Creates a Horizontal rainbow of
  * the user given height of each stripe and length of the image.</p>
  */
 public class GenerateHorizontalRainbow extends AbstractPatternGenerate {
 
+  private static final int[] COLORS = {rgb(148, 0, 211), rgb(75, 0, 130), rgb(0, 0, 255),
+          rgb(0, 255, 0), rgb(255, 255, 0), rgb(255, 140, 0), rgb(255, 0, 0)};
+
   private int heightOfEachStripe;
   private int lengthOFImage;
 
@@ -28,24 +28,12 @@ public class GenerateHorizontalRainbow extends AbstractPatternGenerate {
   }
 
   @Override
-  public Image generate() {
-    int[][] colors = new int[7][3];
-    colors[0] = new int[]{148, 0, 211};
-    colors[1] = new int[]{75, 0, 130};
-    colors[2] = new int[]{0, 0, 255};
-    colors[3] = new int[]{0, 255, 0};
-    colors[4] = new int[]{255, 255, 0};
-    colors[5] = new int[]{255, 140, 0};
-    colors[6] = new int[]{255, 0, 0};
-    int startHeight = 0;
+  protected int getColor(int column, int row) {
+    return COLORS[row / this.heightOfEachStripe];
+  }
 
-    for (int i = 0; i < 7; i++) {
-      int[][][] patch = createColoredPatch(this.heightOfEachStripe, this.lengthOFImage, colors[i]);
-      applyPatchOnImage(0, this.lengthOFImage, startHeight,
-              startHeight + this.heightOfEachStripe, patch);
-      startHeight += this.heightOfEachStripe;
-    }
-    return new SimpleImage(super.finalImage);
+  @Override
+  protected int getRunWidth() {
+    return this.lengthOFImage;
   }
 }
-
@@ -1,8 +1,5 @@
 package model.generateshapes;
 
-import model.image.Image;
-import model.image.SimpleImage;
-
 /**
  * <p>This class extends the {@link AbstractPatternGenerate} class. Creates a Switzerland flag of
  * the user given size of 1:1 ratio.</p>
@@ -27,30 +24,20 @@ public class SwissFlag extends AbstractPatternGenerate {
   }
 
   @Override
-  public Image generate() {
-    int startHeight = 0;
-    int startWidth = 0;
+  protected int getColor(int column, int row) {
     int patchSize = this.heightOfFlag / 5;
-    for (int i = 1; i <= 25; i++) {
-      int[] color;
-      if (i == 8 || i == 12 || i == 13 || i == 14 || i == 18) {
-        color = new int[]{255, 255, 255};
-      } else {
-        color = new int[]{255, 0, 0};
-      }
-      int[][][] patch = createColoredPatch(patchSize, patchSize, color);
-      applyPatchOnImage(startWidth, startWidth + patchSize, startHeight,
-              startHeight + patchSize, patch);
-      if (i % 5 == 0) {
-        startHeight += patchSize;
-        startWidth = 0;
-      } else {
-        startWidth += patchSize;
-      }
+    int patchRow = row / patchSize;
+    int patchColumn = column / patchSize;
+    if ((patchColumn == 2 && patchRow >= 1 && patchRow <= 3)
+            || (patchRow == 2 && patchColumn >= 1 && patchColumn <= 3)) {
+      return rgb(255, 255, 255);
     }
-    return new SimpleImage(finalImage);
+    return rgb(255, 0, 0);
   }
 
-}
-
+  @Override
+  protected int getRunWidth() {
+    return this.heightOfFlag / 5;
+  }
 
+}
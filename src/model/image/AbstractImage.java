@@ -0,0 +1,85 @@
+package model.image;
+
+/**
+ * <p>This class implements the {@link Image} interface. It implements the bulk accessors on top of
+ * {@code getPixelValue} so that a subclass only needs to provide single pixel access, and has
+ * methods to validate the arguments of the bulk accessors.</p>
+ */
+public abstract class AbstractImage implements Image {
+
+  @Override
+  public void getRow(int channel, int row, int[] buffer, int offset)
+          throws IllegalArgumentException {
+    getRegion(channel, 0, row, getWidth(), 1, buffer, offset);
+  }
+
+  @Override
+  public void getRowRGB(int row, int[] buffer, int offset) throws IllegalArgumentException {
+    int width = getWidth();
+    checkRegion(0, 0, row, width, 1, buffer, offset, 3);
+    for (int column = 0; column < width; column++) {
+      buffer[offset++] = getPixelValue(0, column, row);
+      buffer[offset++] = getPixelValue(1, column, row);
+      buffer[offset++] = getPixelValue(2, column, row);
+    }
+  }
+
+  @Override
+  public void getRegion(int channel, int column, int row, int width, int height, int[] buffer,
+                        int offset) throws IllegalArgumentException {
+    checkRegion(channel, column, row, width, height, buffer, offset, 1);
+    for (int y = row; y < row + height; y++) {
+      for (int x = column; x < column + width; x++) {
+        buffer[offset++] = getPixelValue(channel, x, y);
+      }
+    }
+  }
+
+  /**
+   * <p>Checks that the given region lies inside this image and that the buffer can hold the
+   * values of the region.</p>
+   *
+   * @param channel         a specific channel
+   * @param column          the first column of the region
+   * @param row             the first row of the region
+   * @param width           the number of columns in the region
+   * @param height          the number of rows in the region
+   * @param buffer          the buffer that is to hold the values
+   * @param offset          the position in the buffer of the first value
+   * @param valuesPerPixel  the number of values stored in the buffer for every pixel
+   * @throws IllegalArgumentException if the region is not inside the image or the buffer is too
+   *                                  small
+   */
+  protected void checkRegion(int channel, int column, int row, int width, int height,
+                             int[] buffer, int offset, int valuesPerPixel)
+          throws IllegalArgumentException {
+    if (channel > 2 || channel < 0 || column < 0 || row < 0 || width < 0 || height < 0
+            || column + width > getWidth() || row + height > getHeight()) {
+      throw new IllegalArgumentException("region not present in the image, invalid location.");
+    }
+    if (buffer == null || offset < 0
+            || (long) width * height * valuesPerPixel > (long) buffer.length - offset) {
+      throw new IllegalArgumentException("buffer too small for the region.");
+    }
+  }
+
+  /**
+   * <p>Checks that the given number of values starting at the offset in the buffer are all pixel
+   * values, that is between [0, 255].</p>
+   *
+   * @param values the buffer holding the values
+   * @param offset the position in the buffer of the first value
+   * @param length the number of values to check
+   * @throws IllegalArgumentException if any of the values is not between [0, 255]
+   */
+  protected void checkValues(int[] values, int offset, int length)
+          throws IllegalArgumentException {
+    int bits = 0;
+    for (int i = offset; i < offset + length; i++) {
+      bits |= values[i];
+    }
+    if ((bits & ~0xFF) != 0) {
+      throw new IllegalArgumentException("invalid pixel value.");
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package model.image;
+
+/**
+ * <p>This class extends the {@link AbstractImage} class. It represents a greyscale image whose
+ * three channels share a single plane of values, stored row-major with one byte per pixel.
+ * Reading any channel returns the grey value of the pixel.</p>
+ */
+public class GreyImage extends AbstractImage {
+
+  private final int width;
+  private final int height;
+  private final byte[] plane;
+
+  /**
+   * <p>Creates a black greyscale image of the given width and height.</p>
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @throws IllegalArgumentException if the width or height is less than 1 or the image is too
+   *                                  large to be stored in a single array
+   */
+  public GreyImage(int width, int height) throws IllegalArgumentException {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("invalid image.");
+    }
+    if ((long) width * height > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("image too large.");
+    }
+    this.width = width;
+    this.height = height;
+    this.plane = new byte[width * height];
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getPixelValue(int channel, int column, int row) throws IllegalArgumentException {
+    if (channel > 2 || channel < 0 || column < 0 || column >= this.width
+            || row < 0 || row >= this.height) {
+      throw new IllegalArgumentException("pixel not present at this location, invalid location.");
+    }
+    return this.plane[row * this.width + column] & 0xFF;
+  }
+
+  @Override
+  public void getRowRGB(int row, int[] buffer, int offset) throws IllegalArgumentException {
+    checkRegion(0, 0, row, this.width, 1, buffer, offset, 3);
+    int start = row * this.width;
+    for (int i = 0; i < this.width; i++) {
+      int value = this.plane[start + i] & 0xFF;
+      buffer[offset + i * 3] = value;
+      buffer[offset + i * 3 + 1] = value;
+      buffer[offset + i * 3 + 2] = value;
+    }
+  }
+
+  @Override
+  public void getRegion(int channel, int column, int row, int width, int height, int[] buffer,
+                        int offset) throws IllegalArgumentException {
+    checkRegion(channel, column, row, width, height, buffer, offset, 1);
+    for (int y = row; y < row + height; y++) {
+      int start = y * this.width + column;
+      for (int x = 0; x < width; x++) {
+        buffer[offset++] = this.plane[start + x] & 0xFF;
+      }
+    }
+  }
+
+  /**
+   * <p>Sets the grey values of a whole row of this image from the buffer, starting at the given
+   * offset. {@code getWidth()} values are read from the buffer.</p>
+   *
+   * @param row    a specific row in the image
+   * @param values the buffer holding the grey values, each between [0, 255]
+   * @param offset the position in the buffer of the first value
+   * @throws IllegalArgumentException if the row is not present in the image, the buffer is too
+   *                                  small or a value is not between [0, 255]
+   */
+  public void setGreyRow(int row, int[] values, int offset) throws IllegalArgumentException {
+    checkRegion(0, 0, row, this.width, 1, values, offset, 1);
+    checkValues(values, offset, this.width);
+    int start = row * this.width;
+    for (int i = 0; i < this.width; i++) {
+      this.plane[start + i] = (byte) values[offset + i];
+    }
+  }
+}
@@ -38,4 +38,48 @@ public interface Image {
    *                                  than 0
    */
   int getPixelValue(int channel, int column, int row) throws IllegalArgumentException;
+
+  /**
+   * <p>Copies the values of one channel of a whole row of this image into the buffer, starting at
+   * the given offset. The buffer receives {@code getWidth()} values.</p>
+   *
+   * @param channel a specific channel
+   * @param row     a specific row in the image
+   * @param buffer  the buffer into which the values are copied
+   * @param offset  the position in the buffer where the first value is copied
+   * @throws IllegalArgumentException if the channel or row is not present in the image or the
+   *                                  buffer is too small
+   */
+  void getRow(int channel, int row, int[] buffer, int offset) throws IllegalArgumentException;
+
+  /**
+   * <p>Copies all the channels of a whole row of this image into the buffer, starting at the given
+   * offset. The values are interleaved, so the buffer receives the red, green and blue value of
+   * the first pixel followed by those of the next pixel, {@code 3 * getWidth()} values in all.</p>
+   *
+   * @param row    a specific row in the image
+   * @param buffer the buffer into which the values are copied
+   * @param offset the position in the buffer where the first value is copied
+   * @throws IllegalArgumentException if the row is not present in the image or the buffer is too
+   *                                  small
+   */
+  void getRowRGB(int row, int[] buffer, int offset) throws IllegalArgumentException;
+
+  /**
+   * <p>Copies the values of one channel of a rectangular region of this image into the buffer,
+   * starting at the given offset. The region is copied row by row, so the value at {@code (column
+   * + x, row + y)} is copied to {@code buffer[offset + y * width + x]}.</p>
+   *
+   * @param channel a specific channel
+   * @param column  the first column of the region
+   * @param row     the first row of the region
+   * @param width   the number of columns in the region
+   * @param height  the number of rows in the region
+   * @param buffer  the buffer into which the values are copied
+   * @param offset  the position in the buffer where the first value is copied
+   * @throws IllegalArgumentException if the region is not inside the image or the buffer is too
+   *                                  small
+   */
+  void getRegion(int channel, int column, int row, int width, int height, int[] buffer,
+                 int offset) throws IllegalArgumentException;
 }
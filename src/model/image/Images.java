@@ -0,0 +1,72 @@
+package model.image;
+
+/**
+ * <p>Creates the images that operations write their results into. An operation on an image
+ * stored outside of the heap gives a result stored the same way, so that a chain of operations on
+ * an image larger than the heap never needs to hold it in the heap.</p>
+ */
+public final class Images {
+
+  private Images() {
+  }
+
+  /**
+   * <p>Creates a black writable image of the given size to hold the result of an operation on the
+   * given source image. A {@link TiledImage} is created for a tiled source, with tiles of the same
+   * size, and for a {@link MappedImage}, with tiles of the default size, so that a raw image file
+   * larger than the heap can be processed. A {@link PackedImage} is created otherwise.</p>
+   *
+   * @param source the image the operation is applied to
+   * @param width  the width of the result
+   * @param height the height of the result
+   * @return the image to hold the result
+   * @throws IllegalArgumentException if the width or height is less than 1
+   */
+  public static WritableImage createCompatible(Image source, int width, int height)
+          throws IllegalArgumentException {
+    if (source instanceof TiledImage) {
+      return new TiledImage(width, height, ((TiledImage) source).getTileSize());
+    } else if (source instanceof MappedImage) {
+      return new TiledImage(width, height);
+    }
+    return new PackedImage(width, height);
+  }
+
+  /**
+   * <p>Returns whether the given image is stored outside of the heap, in which case operations
+   * should not keep anything in the heap for each of its pixels.</p>
+   *
+   * @param image an image
+   * @return true if the image is stored outside of the heap
+   */
+  public static boolean isOutOfCore(Image image) {
+    return image instanceof TiledImage || image instanceof MappedImage;
+  }
+
+  /**
+   * <p>Returns about how many bytes of the heap the pixels of the given image take. Images stored
+   * outside of the heap and images whose pixels are computed when they are read take none, and a
+   * run-length encoded image takes its runs rather than its pixels. An image of an unknown kind is
+   * counted as three bytes a pixel.</p>
+   *
+   * @param image an image
+   * @return the number of bytes of the heap its pixels take
+   */
+  public static long heapBytes(Image image) {
+    long pixels = (long) image.getWidth() * image.getHeight();
+    if (isOutOfCore(image) || image instanceof ProceduralImage) {
+      return 0;
+    } else if (image instanceof GreyImage) {
+      return pixels;
+    } else if (image instanceof SimpleImage) {
+      return pixels * 3 * Integer.BYTES;
+    } else if (image instanceof RunLengthImage) {
+      long runs = 0;
+      for (int row = 0; row < image.getHeight(); row++) {
+        runs += ((RunLengthImage) image).getRunCount(row);
+      }
+      return runs * 2 * Integer.BYTES;
+    }
+    return pixels * 3;
+  }
+}
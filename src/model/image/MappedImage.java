@@ -0,0 +1,133 @@
+package model.image;
+
+import java.nio.MappedByteBuffer;
+
+/**
+ * <p>This class extends the {@link AbstractImage} class. It represents an image read from a raw
+ * image file by mapping the file into memory instead of copying its pixels, so the pixels are only
+ * read from the disk as they are used. The channels are arranged in the file according to a
+ * {@link PixelLayout}, in the same way as in a {@link PackedImage}.</p>
+ *
+ * <p>The pixels are split into lines, a row of interleaved values or a row of a single channel,
+ * and the lines are mapped in groups that each fit in a single buffer.</p>
+ */
+public class MappedImage extends AbstractImage {
+
+  private final int width;
+  private final int height;
+  private final PixelLayout layout;
+  private final int lineBytes;
+  private final int linesPerBuffer;
+  private final MappedByteBuffer[] buffers;
+
+  /**
+   * <p>Creates an image over the given mapped groups of lines.</p>
+   *
+   * @param width          the width of the image
+   * @param height         the height of the image
+   * @param layout         the arrangement of the channels in the file
+   * @param linesPerBuffer the number of lines mapped by each buffer
+   * @param buffers        the buffers mapping the lines, in order
+   */
+  MappedImage(int width, int height, PixelLayout layout, int linesPerBuffer,
+              MappedByteBuffer[] buffers) {
+    this.width = width;
+    this.height = height;
+    this.layout = layout;
+    this.lineBytes = layout == PixelLayout.INTERLEAVED ? width * 3 : width;
+    this.linesPerBuffer = linesPerBuffer;
+    this.buffers = buffers;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * <p>Returns the arrangement of the channels in the file of this image.</p>
+   *
+   * @return the layout of this image
+   */
+  public PixelLayout getLayout() {
+    return this.layout;
+  }
+
+  @Override
+  public int getPixelValue(int channel, int column, int row) throws IllegalArgumentException {
+    if (channel > 2 || channel < 0 || column < 0 || column >= this.width
+            || row < 0 || row >= this.height) {
+      throw new IllegalArgumentException("pixel not present at this location, invalid location.");
+    }
+    int line = line(channel, row);
+    int index = (line % this.linesPerBuffer) * this.lineBytes
+            + (this.layout == PixelLayout.INTERLEAVED ? column * 3 + channel : column);
+    return this.buffers[line / this.linesPerBuffer].get(index) & 0xFF;
+  }
+
+  @Override
+  public void getRowRGB(int row, int[] buffer, int offset) throws IllegalArgumentException {
+    checkRegion(0, 0, row, this.width, 1, buffer, offset, 3);
+    if (this.layout == PixelLayout.INTERLEAVED) {
+      byte[] values = readLine(0, row);
+      for (int i = 0; i < values.length; i++) {
+        buffer[offset + i] = values[i] & 0xFF;
+      }
+    } else {
+      for (int channel = 0; channel < 3; channel++) {
+        byte[] values = readLine(channel, row);
+        for (int i = 0; i < this.width; i++) {
+          buffer[offset + i * 3 + channel] = values[i] & 0xFF;
+        }
+      }
+    }
+  }
+
+  @Override
+  public void getRegion(int channel, int column, int row, int width, int height, int[] buffer,
+                        int offset) throws IllegalArgumentException {
+    checkRegion(channel, column, row, width, height, buffer, offset, 1);
+    if (width == 0) {
+      return;
+    }
+    int stride = this.layout == PixelLayout.INTERLEAVED ? 3 : 1;
+    int first = this.layout == PixelLayout.INTERLEAVED ? column * 3 + channel : column;
+    for (int y = row; y < row + height; y++) {
+      byte[] values = readLine(channel, y);
+      for (int x = 0; x < width; x++) {
+        buffer[offset++] = values[first + x * stride] & 0xFF;
+      }
+    }
+  }
+
+  /**
+   * <p>Copies the line holding the given channel of the given row out of its buffer.</p>
+   *
+   * @param channel a channel, only used if the channels are not interleaved
+   * @param row     a row of the image
+   * @return the values of the line
+   */
+  private byte[] readLine(int channel, int row) {
+    int line = line(channel, row);
+    byte[] values = new byte[this.lineBytes];
+    this.buffers[line / this.linesPerBuffer].duplicate()
+            .position((line % this.linesPerBuffer) * this.lineBytes).get(values, 0, this.lineBytes);
+    return values;
+  }
+
+  /**
+   * <p>Returns the index of the line holding the given channel of the given row.</p>
+   *
+   * @param channel a channel, only used if the channels are not interleaved
+   * @param row     a row of the image
+   * @return the index of the line
+   */
+  private int line(int channel, int row) {
+    return this.layout == PixelLayout.INTERLEAVED ? row : channel * this.height + row;
+  }
+}
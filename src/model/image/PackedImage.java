@@ -0,0 +1,179 @@
+package model.image;
+
+/**
+ * <p>This class extends the {@link AbstractImage} class and implements the {@link WritableImage}
+ * interface. It stores the image in a single flat byte
+ * array using 3 bytes per pixel. The pixels are stored row-major and the channels are arranged
+ * according to the {@link PixelLayout} given when the image is created.</p>
+ */
+public class PackedImage extends AbstractImage implements WritableImage {
+
+  private final int width;
+  private final int height;
+  private final PixelLayout layout;
+  private final byte[] data;
+
+  /**
+   * <p>Creates a black image of the given width and height whose channels are interleaved.</p>
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @throws IllegalArgumentException if the width or height is less than 1 or the image is too
+   *                                  large to be stored in a single array
+   */
+  public PackedImage(int width, int height) throws IllegalArgumentException {
+    this(width, height, PixelLayout.INTERLEAVED);
+  }
+
+  /**
+   * <p>Creates a black image of the given width and height whose channels are arranged according
+   * to the given layout.</p>
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @param layout the arrangement of the channels in the backing array
+   * @throws IllegalArgumentException if the width or height is less than 1, the layout is null or
+   *                                  the image is too large to be stored in a single array
+   */
+  public PackedImage(int width, int height, PixelLayout layout) throws IllegalArgumentException {
+    if (width < 1 || height < 1 || layout == null) {
+      throw new IllegalArgumentException("invalid image.");
+    }
+    if ((long) width * height * 3 > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("image too large.");
+    }
+    this.width = width;
+    this.height = height;
+    this.layout = layout;
+    this.data = new byte[width * height * 3];
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * <p>Returns the arrangement of the channels in the backing array of this image.</p>
+   *
+   * @return the layout of this image
+   */
+  public PixelLayout getLayout() {
+    return this.layout;
+  }
+
+  /**
+   * <p>Returns the array backing this image, so that it can be written out as it is. The array is
+   * not copied and must not be changed.</p>
+   *
+   * @return the array backing this image
+   */
+  byte[] getData() {
+    return this.data;
+  }
+
+  @Override
+  public int getPixelValue(int channel, int column, int row) throws IllegalArgumentException {
+    return this.data[index(channel, column, row)] & 0xFF;
+  }
+
+  @Override
+  public void setPixelValue(int channel, int column, int row, int value)
+          throws IllegalArgumentException {
+    if (value < 0 || value > 255) {
+      throw new IllegalArgumentException("invalid pixel value.");
+    }
+    this.data[index(channel, column, row)] = (byte) value;
+  }
+
+  @Override
+  public void getRowRGB(int row, int[] buffer, int offset) throws IllegalArgumentException {
+    checkRegion(0, 0, row, this.width, 1, buffer, offset, 3);
+    if (this.layout == PixelLayout.INTERLEAVED) {
+      int start = row * this.width * 3;
+      for (int i = 0; i < this.width * 3; i++) {
+        buffer[offset + i] = this.data[start + i] & 0xFF;
+      }
+    } else {
+      for (int channel = 0; channel < 3; channel++) {
+        int start = (channel * this.height + row) * this.width;
+        for (int i = 0; i < this.width; i++) {
+          buffer[offset + i * 3 + channel] = this.data[start + i] & 0xFF;
+        }
+      }
+    }
+  }
+
+  @Override
+  public void getRegion(int channel, int column, int row, int width, int height, int[] buffer,
+                        int offset) throws IllegalArgumentException {
+    checkRegion(channel, column, row, width, height, buffer, offset, 1);
+    if (width == 0) {
+      return;
+    }
+    int stride = this.layout == PixelLayout.INTERLEAVED ? 3 : 1;
+    for (int y = row; y < row + height; y++) {
+      int start = index(channel, column, y);
+      for (int x = 0; x < width; x++) {
+        buffer[offset++] = this.data[start + x * stride] & 0xFF;
+      }
+    }
+  }
+
+  @Override
+  public void setRow(int channel, int row, int[] values, int offset)
+          throws IllegalArgumentException {
+    checkRegion(channel, 0, row, this.width, 1, values, offset, 1);
+    checkValues(values, offset, this.width);
+    int stride = this.layout == PixelLayout.INTERLEAVED ? 3 : 1;
+    int start = index(channel, 0, row);
+    for (int x = 0; x < this.width; x++) {
+      this.data[start + x * stride] = (byte) values[offset + x];
+    }
+  }
+
+  @Override
+  public void setRowRGB(int row, int[] values, int offset) throws IllegalArgumentException {
+    checkRegion(0, 0, row, this.width, 1, values, offset, 3);
+    checkValues(values, offset, this.width * 3);
+    if (this.layout == PixelLayout.INTERLEAVED) {
+      int start = row * this.width * 3;
+      for (int i = 0; i < this.width * 3; i++) {
+        this.data[start + i] = (byte) values[offset + i];
+      }
+    } else {
+      for (int channel = 0; channel < 3; channel++) {
+        int start = (channel * this.height + row) * this.width;
+        for (int i = 0; i < this.width; i++) {
+          this.data[start + i] = (byte) values[offset + i * 3 + channel];
+        }
+      }
+    }
+  }
+
+  /**
+   * <p>Returns the position in the backing array where the value of the given channel, column and
+   * row is stored.</p>
+   *
+   * @param channel a specific channel
+   * @param column  a specific column in the image
+   * @param row     a specific row in the image
+   * @return the index in the backing array
+   * @throws IllegalArgumentException if the location is not present in the image
+   */
+  private int index(int channel, int column, int row) throws IllegalArgumentException {
+    if (channel > 2 || channel < 0 || column < 0 || column >= this.width
+            || row < 0 || row >= this.height) {
+      throw new IllegalArgumentException("pixel not present at this location, invalid location.");
+    }
+    if (this.layout == PixelLayout.INTERLEAVED) {
+      return (row * this.width + column) * 3 + channel;
+    }
+    return (channel * this.height + row) * this.width + column;
+  }
+}
@@ -0,0 +1,19 @@
+package model.image;
+
+/**
+ * <p>This enum represents the ways in which the channels of a {@link PackedImage} can be arranged
+ * in its backing storage. In both layouts the pixels are stored row-major.</p>
+ */
+public enum PixelLayout {
+
+  /**
+   * The red, green and blue values of a pixel are stored next to each other.
+   */
+  INTERLEAVED,
+
+  /**
+   * All the red values are stored first, followed by all the green and then all the blue values.
+   */
+  PLANAR;
+
+}
@@ -0,0 +1,113 @@
+package model.image;
+
+/**
+ * <p>This class extends the {@link AbstractImage} class. It represents an image whose pixels are
+ * not stored but computed on demand from their location, so that creating it costs no memory no
+ * matter its size. A subclass provides the color of a single pixel and may fill whole rows in
+ * bulk, which is how the rows are read when the image is processed or saved.</p>
+ */
+public abstract class ProceduralImage extends AbstractImage {
+
+  private final int width;
+  private final int height;
+
+  /**
+   * <p>Creates a procedural image of the given width and height.</p>
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @throws IllegalArgumentException if the width or height is less than 1
+   */
+  protected ProceduralImage(int width, int height) throws IllegalArgumentException {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("invalid image.");
+    }
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * <p>Computes the color of the pixel at the given location, packed as {@code 0xRRGGBB}.</p>
+   *
+   * @param column a column of the image
+   * @param row    a row of the image
+   * @return the packed color of the pixel
+   */
+  protected abstract int getColor(int column, int row);
+
+  /**
+   * <p>Computes the packed colors of a whole row of this image into the buffer, starting at the
+   * given offset. The default implementation computes each pixel on its own; subclasses whose rows
+   * are made of runs of equal color should override it to fill the runs in bulk.</p>
+   *
+   * @param row    a row of the image
+   * @param colors the buffer to hold {@code getWidth()} packed colors
+   * @param offset the position in the buffer of the first color
+   */
+  protected void fillRow(int row, int[] colors, int offset) {
+    for (int column = 0; column < this.width; column++) {
+      colors[offset + column] = getColor(column, row);
+    }
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getPixelValue(int channel, int column, int row) throws IllegalArgumentException {
+    if (channel > 2 || channel < 0 || column < 0 || column >= this.width
+            || row < 0 || row >= this.height) {
+      throw new IllegalArgumentException("pixel not present at this location, invalid location.");
+    }
+    return (getColor(column, row) >> (16 - channel * 8)) & 0xFF;
+  }
+
+  @Override
+  public void getRow(int channel, int row, int[] buffer, int offset)
+          throws IllegalArgumentException {
+    checkRegion(channel, 0, row, this.width, 1, buffer, offset, 1);
+    fillRow(row, buffer, offset);
+    int shift = 16 - channel * 8;
+    for (int i = offset; i < offset + this.width; i++) {
+      buffer[i] = (buffer[i] >> shift) & 0xFF;
+    }
+  }
+
+  @Override
+  public void getRowRGB(int row, int[] buffer, int offset) throws IllegalArgumentException {
+    checkRegion(0, 0, row, this.width, 1, buffer, offset, 3);
+    // The packed colors take the first third of the space of the row, so they can be unpacked in
+    // place by working backwards from the last pixel.
+    fillRow(row, buffer, offset);
+    for (int i = this.width - 1; i >= 0; i--) {
+      int color = buffer[offset + i];
+      buffer[offset + i * 3] = (color >> 16) & 0xFF;
+      buffer[offset + i * 3 + 1] = (color >> 8) & 0xFF;
+      buffer[offset + i * 3 + 2] = color & 0xFF;
+    }
+  }
+
+  @Override
+  public void getRegion(int channel, int column, int row, int width, int height, int[] buffer,
+                        int offset) throws IllegalArgumentException {
+    checkRegion(channel, column, row, width, height, buffer, offset, 1);
+    if (width == 0) {
+      return;
+    }
+    int shift = 16 - channel * 8;
+    int[] colors = new int[this.width];
+    for (int y = row; y < row + height; y++) {
+      fillRow(y, colors, 0);
+      for (int x = column; x < column + width; x++) {
+        buffer[offset++] = (colors[x] >> shift) & 0xFF;
+      }
+    }
+  }
+}
@@ -0,0 +1,187 @@
+package model.image;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>Reads and writes images in the raw image format of this program. A raw image file is a
+ * {@value #HEADER_SIZE} byte header followed by the pixels, one byte per value, arranged exactly
+ * as in a {@link PackedImage} of the layout given in the header, so that no decoding is needed in
+ * either direction.</p>
+ *
+ * <p>The header holds, in order: the four bytes {@code RAWI}, the version of the format, the
+ * layout of the pixels (0 for interleaved and 1 for planar channels), two bytes set to 0, and the
+ * width and height of the image as big-endian ints.</p>
+ *
+ * <p>Reading a file maps it into memory rather than copying it, and writing a {@link PackedImage}
+ * writes its backing array in one go.</p>
+ */
+public final class RawImageFile {
+
+  /**
+   * The size in bytes of the header of a raw image file.
+   */
+  public static final int HEADER_SIZE = 16;
+
+  private static final int MAGIC = 0x52415749;
+  private static final byte VERSION = 1;
+  private static final int MAX_BUFFER_BYTES = 1 << 30;
+  private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+  private RawImageFile() {
+  }
+
+  /**
+   * <p>Returns whether the given file starts with the header of a raw image file.</p>
+   *
+   * @param file a file
+   * @return true if the file is a raw image file
+   */
+  public static boolean isRawImage(File file) {
+    if (file == null || !file.isFile()) {
+      return false;
+    }
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer magic = ByteBuffer.allocate(4);
+      while (magic.hasRemaining() && channel.read(magic) >= 0) {
+        // Keep reading until the magic number is read or the file ends.
+      }
+      return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * <p>Reads the raw image file by mapping it into memory. The pixels are only read from the disk
+   * as they are used.</p>
+   *
+   * @param file the raw image file
+   * @return the image in the file
+   * @throws IOException              if the file cannot be read
+   * @throws IllegalArgumentException if the file is not a valid raw image file
+   */
+  public static MappedImage read(File file) throws IOException, IllegalArgumentException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      while (header.hasRemaining() && channel.read(header) >= 0) {
+        // Keep reading until the header is read or the file ends.
+      }
+      if (header.hasRemaining() || header.getInt(0) != MAGIC || header.get(4) != VERSION
+              || header.get(5) < 0 || header.get(5) >= PixelLayout.values().length) {
+        throw new IllegalArgumentException("invalid raw image file.");
+      }
+      PixelLayout layout = PixelLayout.values()[header.get(5)];
+      int width = header.getInt(8);
+      int height = header.getInt(12);
+      if (width < 1 || height < 1
+              || channel.size() != HEADER_SIZE + (long) width * height * 3) {
+        throw new IllegalArgumentException("invalid raw image file.");
+      }
+      long lineBytes = layout == PixelLayout.INTERLEAVED ? (long) width * 3 : width;
+      long lines = layout == PixelLayout.INTERLEAVED ? height : (long) height * 3;
+      if (lineBytes > Integer.MAX_VALUE || lines > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("image too large.");
+      }
+      int linesPerBuffer = (int) Math.max(1, Math.min(lines, MAX_BUFFER_BYTES / lineBytes));
+      MappedByteBuffer[] buffers = new MappedByteBuffer[
+              (int) ((lines + linesPerBuffer - 1) / linesPerBuffer)];
+      for (int i = 0; i < buffers.length; i++) {
+        long firstLine = (long) i * linesPerBuffer;
+        long bufferLines = Math.min(linesPerBuffer, lines - firstLine);
+        buffers[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                HEADER_SIZE + firstLine * lineBytes, bufferLines * lineBytes);
+      }
+      return new MappedImage(width, height, layout, linesPerBuffer, buffers);
+    }
+  }
+
+  /**
+   * <p>Writes the image to the given file in the raw image format. A {@link PackedImage} is
+   * written with its own layout in a single write of its backing array; any other image is written
+   * with interleaved channels, a few rows at a time.</p>
+   *
+   * <p>The image is first written to a file next to the given one, which then replaces it, so an
+   * image read from the file being replaced stays readable.</p>
+   *
+   * @param image the image to be written
+   * @param file  the file to write the image to
+   * @throws IOException              if the file cannot be written
+   * @throws IllegalArgumentException if the image or file is null
+   */
+  public static void write(Image image, File file) throws IOException, IllegalArgumentException {
+    if (image == null || file == null) {
+      throw new IllegalArgumentException("invalid image.");
+    }
+    PixelLayout layout = image instanceof PackedImage ? ((PackedImage) image).getLayout()
+            : PixelLayout.INTERLEAVED;
+    Path target = file.toPath().toAbsolutePath();
+    Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      header.putInt(MAGIC).put(VERSION).put((byte) layout.ordinal()).putShort((short) 0)
+              .putInt(image.getWidth()).putInt(image.getHeight()).flip();
+      writeFully(channel, header);
+      if (image instanceof PackedImage) {
+        writeFully(channel, ByteBuffer.wrap(((PackedImage) image).getData()));
+      } else {
+        writeRows(channel, image);
+      }
+    }
+    try {
+      Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * <p>Writes the rows of the image with interleaved channels, gathering as many rows as fit in
+   * the write buffer before each write.</p>
+   *
+   * @param channel the channel of the file
+   * @param image   the image to be written
+   * @throws IOException if the file cannot be written
+   */
+  private static void writeRows(FileChannel channel, Image image) throws IOException {
+    int width = image.getWidth();
+    int[] rowValues = new int[width * 3];
+    ByteBuffer buffer = ByteBuffer.allocate(Math.max(WRITE_BUFFER_BYTES, width * 3));
+    for (int j = 0; j < image.getHeight(); j++) {
+      if (buffer.remaining() < width * 3) {
+        buffer.flip();
+        writeFully(channel, buffer);
+        buffer.clear();
+      }
+      image.getRowRGB(j, rowValues, 0);
+      for (int value : rowValues) {
+        buffer.put((byte) value);
+      }
+    }
+    buffer.flip();
+    writeFully(channel, buffer);
+  }
+
+  /**
+   * <p>Writes all the remaining bytes of the buffer to the channel.</p>
+   *
+   * @param channel the channel of the file
+   * @param buffer  the bytes to be written
+   * @throws IOException if the file cannot be written
+   */
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+}
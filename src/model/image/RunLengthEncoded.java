@@ -0,0 +1,33 @@
+package model.image;
+
+/**
+ * <p>Represents an image whose rows are made of runs of pixels of the same color, which can be
+ * read run by run instead of pixel by pixel. Every row has at least one run and at most
+ * {@code getWidth()} runs. A run is described by the column just past its last pixel and its
+ * color packed as {@code 0xRRGGBB}; the first run of a row starts at column 0 and every other run
+ * starts where the previous one ends.</p>
+ */
+public interface RunLengthEncoded extends Image {
+
+  /**
+   * <p>Returns the number of runs the given row is made of.</p>
+   *
+   * @param row a specific row in the image
+   * @return the number of runs in the row
+   * @throws IllegalArgumentException if the row is not present in the image
+   */
+  int getRunCount(int row) throws IllegalArgumentException;
+
+  /**
+   * <p>Copies the runs of the given row into the buffers, starting at index 0 of each. Both
+   * buffers should hold at least {@code getRunCount(row)} values.</p>
+   *
+   * @param row     a specific row in the image
+   * @param runEnds the buffer to hold the column just past the last pixel of each run
+   * @param colors  the buffer to hold the packed color of each run
+   * @return the number of runs copied
+   * @throws IllegalArgumentException if the row is not present in the image or a buffer is too
+   *                                  small
+   */
+  int getRuns(int row, int[] runEnds, int[] colors) throws IllegalArgumentException;
+}
@@ -0,0 +1,213 @@
+package model.image;
+
+import java.util.Arrays;
+
+/**
+ * <p>This class extends the {@link AbstractImage} class. It stores every row of the image as a
+ * list of runs of pixels of the same color, so images of flat colored regions take memory in
+ * proportion to the number of runs rather than the number of pixels. Reading a pixel searches the
+ * runs of its row, and reading a whole row fills the runs in bulk.</p>
+ */
+public class RunLengthImage extends AbstractImage implements RunLengthEncoded {
+
+  private final int width;
+  private final int height;
+  private final int[][] runEnds;
+  private final int[][] colors;
+
+  /**
+   * <p>Creates a black image of the given width and height, where every row is a single run.</p>
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @throws IllegalArgumentException if the width or height is less than 1
+   */
+  public RunLengthImage(int width, int height) throws IllegalArgumentException {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("invalid image.");
+    }
+    this.width = width;
+    this.height = height;
+    this.runEnds = new int[height][];
+    this.colors = new int[height][];
+    int[] blackEnds = new int[]{width};
+    int[] blackColors = new int[]{0};
+    for (int i = 0; i < height; i++) {
+      this.runEnds[i] = blackEnds;
+      this.colors[i] = blackColors;
+    }
+  }
+
+  /**
+   * <p>Encodes the given image into runs, reading it one row at a time.</p>
+   *
+   * @param image the image to be encoded
+   * @return the run-length encoded copy of the image
+   * @throws IllegalArgumentException if the image is null
+   */
+  public static RunLengthImage encode(Image image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("invalid image.");
+    }
+    int width = image.getWidth();
+    int height = image.getHeight();
+    RunLengthImage encoded = new RunLengthImage(width, height);
+    int[] runEnds = new int[width];
+    int[] colors = new int[width];
+    if (image instanceof RunLengthEncoded) {
+      RunLengthEncoded runs = (RunLengthEncoded) image;
+      for (int j = 0; j < height; j++) {
+        encoded.setRuns(j, runEnds, colors, runs.getRuns(j, runEnds, colors));
+      }
+      return encoded;
+    }
+    int[] row = new int[width * 3];
+    for (int j = 0; j < height; j++) {
+      image.getRowRGB(j, row, 0);
+      int runCount = 0;
+      int previous = -1;
+      for (int i = 0; i < width; i++) {
+        int color = row[i * 3] << 16 | row[i * 3 + 1] << 8 | row[i * 3 + 2];
+        if (color != previous) {
+          if (runCount > 0) {
+            runEnds[runCount - 1] = i;
+          }
+          colors[runCount++] = color;
+          previous = color;
+        }
+      }
+      runEnds[runCount - 1] = width;
+      encoded.setRuns(j, runEnds, colors, runCount);
+    }
+    return encoded;
+  }
+
+  /**
+   * <p>Sets the runs of the given row of this image. Adjacent runs of the same color are merged
+   * into one.</p>
+   *
+   * @param row      a specific row in the image
+   * @param runEnds  the column just past the last pixel of each run, in increasing order, the last
+   *                 of which is the width of the image
+   * @param colors   the color of each run packed as {@code 0xRRGGBB}
+   * @param runCount the number of runs to be read from the buffers
+   * @throws IllegalArgumentException if the row is not present in the image, or the runs do not
+   *                                  exactly cover the row or have invalid colors
+   */
+  public void setRuns(int row, int[] runEnds, int[] colors, int runCount)
+          throws IllegalArgumentException {
+    if (row < 0 || row >= this.height) {
+      throw new IllegalArgumentException("row not present in the image, invalid location.");
+    }
+    if (runEnds == null || colors == null || runCount < 1 || runCount > runEnds.length
+            || runCount > colors.length || runEnds[runCount - 1] != this.width) {
+      throw new IllegalArgumentException("invalid runs.");
+    }
+    int merged = 0;
+    int previousEnd = 0;
+    for (int i = 0; i < runCount; i++) {
+      if (runEnds[i] <= previousEnd || (colors[i] & ~0xFFFFFF) != 0) {
+        throw new IllegalArgumentException("invalid runs.");
+      }
+      previousEnd = runEnds[i];
+      if (i == 0 || colors[i] != colors[i - 1]) {
+        merged++;
+      }
+    }
+    int[] rowEnds = new int[merged];
+    int[] rowColors = new int[merged];
+    int run = -1;
+    for (int i = 0; i < runCount; i++) {
+      if (i == 0 || colors[i] != colors[i - 1]) {
+        rowColors[++run] = colors[i];
+      }
+      rowEnds[run] = runEnds[i];
+    }
+    this.runEnds[row] = rowEnds;
+    this.colors[row] = rowColors;
+  }
+
+  @Override
+  public int getRunCount(int row) throws IllegalArgumentException {
+    if (row < 0 || row >= this.height) {
+      throw new IllegalArgumentException("row not present in the image, invalid location.");
+    }
+    return this.runEnds[row].length;
+  }
+
+  @Override
+  public int getRuns(int row, int[] runEnds, int[] colors) throws IllegalArgumentException {
+    int runCount = getRunCount(row);
+    if (runEnds == null || colors == null || runEnds.length < runCount
+            || colors.length < runCount) {
+      throw new IllegalArgumentException("buffer too small for the runs.");
+    }
+    System.arraycopy(this.runEnds[row], 0, runEnds, 0, runCount);
+    System.arraycopy(this.colors[row], 0, colors, 0, runCount);
+    return runCount;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getPixelValue(int channel, int column, int row) throws IllegalArgumentException {
+    if (channel > 2 || channel < 0 || column < 0 || column >= this.width
+            || row < 0 || row >= this.height) {
+      throw new IllegalArgumentException("pixel not present at this location, invalid location.");
+    }
+    // The run holding the column is the first one that ends past it.
+    int run = Arrays.binarySearch(this.runEnds[row], column);
+    run = run < 0 ? -run - 1 : run + 1;
+    return (this.colors[row][run] >> (16 - channel * 8)) & 0xFF;
+  }
+
+  @Override
+  public void getRowRGB(int row, int[] buffer, int offset) throws IllegalArgumentException {
+    checkRegion(0, 0, row, this.width, 1, buffer, offset, 3);
+    int[] rowEnds = this.runEnds[row];
+    int[] rowColors = this.colors[row];
+    int start = 0;
+    for (int run = 0; run < rowEnds.length; run++) {
+      int red = (rowColors[run] >> 16) & 0xFF;
+      int green = (rowColors[run] >> 8) & 0xFF;
+      int blue = rowColors[run] & 0xFF;
+      for (int i = start; i < rowEnds[run]; i++) {
+        buffer[offset + i * 3] = red;
+        buffer[offset + i * 3 + 1] = green;
+        buffer[offset + i * 3 + 2] = blue;
+      }
+      start = rowEnds[run];
+    }
+  }
+
+  @Override
+  public void getRegion(int channel, int column, int row, int width, int height, int[] buffer,
+                        int offset) throws IllegalArgumentException {
+    checkRegion(channel, column, row, width, height, buffer, offset, 1);
+    int shift = 16 - channel * 8;
+    int end = column + width;
+    for (int y = row; y < row + height; y++) {
+      int[] rowEnds = this.runEnds[y];
+      int[] rowColors = this.colors[y];
+      int start = 0;
+      for (int run = 0; run < rowEnds.length && start < end; run++) {
+        int from = Math.max(start, column);
+        int to = Math.min(rowEnds[run], end);
+        if (from < to) {
+          Arrays.fill(buffer, offset + from - column, offset + to - column,
+                  (rowColors[run] >> shift) & 0xFF);
+        }
+        start = rowEnds[run];
+      }
+      offset += width;
+    }
+  }
+}
@@ -1,11 +1,11 @@
 package model.image;
 
 /**
- * <p>This class implements the {@link Image} interface. It stores the image as a 3D array, which
+ * <p>This class extends the {@link AbstractImage} class. It stores the image as a 3D array, which
  * has 3 channels and each channel having rows and columns that specifies the pixel at that row and
  * column.</p>
  */
-public class SimpleImage implements Image {
+public class SimpleImage extends AbstractImage {
 
   private final int[][][] image;
 
@@ -42,4 +42,16 @@ public class SimpleImage implements Image {
     }
     return this.image[channel][column][row];
   }
+
+  @Override
+  public void getRegion(int channel, int column, int row, int width, int height, int[] buffer,
+                        int offset) throws IllegalArgumentException {
+    checkRegion(channel, column, row, width, height, buffer, offset, 1);
+    int[][] plane = this.image[channel];
+    for (int y = row; y < row + height; y++) {
+      for (int x = column; x < column + width; x++) {
+        buffer[offset++] = plane[x][y];
+      }
+    }
+  }
 }
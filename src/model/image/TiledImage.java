@@ -0,0 +1,224 @@
+package model.image;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * <p>This class extends the {@link AbstractImage} class. It stores the pixels of the image outside
+ * of the heap, in a scratch file that is mapped into memory, so that images larger than the heap
+ * can be processed. The operating system loads and writes back the parts of the file being used,
+ * and only a bounded amount of heap is used however large the image is.</p>
+ *
+ * <p>The image is cut into square tiles whose pixels are stored together with interleaved
+ * channels, so that a tile is held in a few consecutive pages of the file. Each row of tiles is
+ * mapped separately, which keeps every mapping below the size limit of a single buffer.</p>
+ */
+public class TiledImage extends AbstractImage implements WritableImage {
+
+  /**
+   * The side of the tiles used when none is given.
+   */
+  public static final int DEFAULT_TILE_SIZE = 256;
+
+  private final int width;
+  private final int height;
+  private final int tileSize;
+  private final int tileBytes;
+  private final MappedByteBuffer[] tileRows;
+
+  /**
+   * <p>Creates a black image of the given width and height stored in tiles of the default
+   * size.</p>
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @throws IllegalArgumentException if the width or height is less than 1
+   * @throws IllegalStateException    if the scratch file cannot be created
+   */
+  public TiledImage(int width, int height) throws IllegalArgumentException,
+          IllegalStateException {
+    this(width, height, DEFAULT_TILE_SIZE);
+  }
+
+  /**
+   * <p>Creates a black image of the given width and height stored in square tiles of the given
+   * side.</p>
+   *
+   * @param width    the width of the image
+   * @param height   the height of the image
+   * @param tileSize the side of the tiles
+   * @throws IllegalArgumentException if the width, height or tile size is less than 1, or a row of
+   *                                  tiles is too large to be mapped
+   * @throws IllegalStateException    if the scratch file cannot be created
+   */
+  public TiledImage(int width, int height, int tileSize) throws IllegalArgumentException,
+          IllegalStateException {
+    if (width < 1 || height < 1 || tileSize < 1) {
+      throw new IllegalArgumentException("invalid image.");
+    }
+    long tileBytes = (long) tileSize * tileSize * 3;
+    int tilesAcross = (width + tileSize - 1) / tileSize;
+    int tilesDown = (height + tileSize - 1) / tileSize;
+    if (tileBytes * tilesAcross > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("image too large.");
+    }
+    this.width = width;
+    this.height = height;
+    this.tileSize = tileSize;
+    this.tileBytes = (int) tileBytes;
+    this.tileRows = new MappedByteBuffer[tilesDown];
+
+    long tileRowBytes = tileBytes * tilesAcross;
+    try {
+      File scratch = File.createTempFile("tiled-image", ".tmp");
+      try (RandomAccessFile file = new RandomAccessFile(scratch, "rw")) {
+        file.setLength(tileRowBytes * tilesDown);
+        FileChannel channel = file.getChannel();
+        for (int i = 0; i < tilesDown; i++) {
+          this.tileRows[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * tileRowBytes,
+                  tileRowBytes);
+        }
+      } finally {
+        // The mappings stay valid once the file is gone, and the space is given back when they
+        // are no longer reachable.
+        if (!scratch.delete()) {
+          scratch.deleteOnExit();
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("could not create the scratch file of the image.", e);
+    }
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * <p>Returns the side of the square tiles this image is stored in. Processing the image one
+   * tile, or one row of tiles, at a time keeps the pages in use together.</p>
+   *
+   * @return the side of the tiles
+   */
+  public int getTileSize() {
+    return this.tileSize;
+  }
+
+  @Override
+  public int getPixelValue(int channel, int column, int row) throws IllegalArgumentException {
+    checkPixel(channel, column, row);
+    return this.tileRows[row / this.tileSize].get(index(column, row) + channel) & 0xFF;
+  }
+
+  @Override
+  public void setPixelValue(int channel, int column, int row, int value)
+          throws IllegalArgumentException {
+    checkPixel(channel, column, row);
+    if (value < 0 || value > 255) {
+      throw new IllegalArgumentException("invalid pixel value.");
+    }
+    this.tileRows[row / this.tileSize].put(index(column, row) + channel, (byte) value);
+  }
+
+  @Override
+  public void getRowRGB(int row, int[] buffer, int offset) throws IllegalArgumentException {
+    checkRegion(0, 0, row, this.width, 1, buffer, offset, 3);
+    ByteBuffer tileRow = this.tileRows[row / this.tileSize].duplicate();
+    byte[] span = new byte[Math.min(this.tileSize, this.width) * 3];
+    for (int column = 0; column < this.width; column += this.tileSize) {
+      int length = Math.min(this.tileSize, this.width - column) * 3;
+      tileRow.position(index(column, row)).get(span, 0, length);
+      for (int i = 0; i < length; i++) {
+        buffer[offset++] = span[i] & 0xFF;
+      }
+    }
+  }
+
+  @Override
+  public void getRegion(int channel, int column, int row, int width, int height, int[] buffer,
+                        int offset) throws IllegalArgumentException {
+    checkRegion(channel, column, row, width, height, buffer, offset, 1);
+    if (width == 0) {
+      return;
+    }
+    byte[] span = new byte[Math.min(this.tileSize, width) * 3];
+    for (int y = row; y < row + height; y++) {
+      ByteBuffer tileRow = this.tileRows[y / this.tileSize].duplicate();
+      int x = column;
+      while (x < column + width) {
+        int length = Math.min(this.tileSize - x % this.tileSize, column + width - x);
+        tileRow.position(index(x, y)).get(span, 0, length * 3);
+        for (int i = 0; i < length; i++) {
+          buffer[offset++] = span[i * 3 + channel] & 0xFF;
+        }
+        x += length;
+      }
+    }
+  }
+
+  @Override
+  public void setRow(int channel, int row, int[] values, int offset)
+          throws IllegalArgumentException {
+    checkRegion(channel, 0, row, this.width, 1, values, offset, 1);
+    checkValues(values, offset, this.width);
+    MappedByteBuffer tileRow = this.tileRows[row / this.tileSize];
+    for (int column = 0; column < this.width; column++) {
+      tileRow.put(index(column, row) + channel, (byte) values[offset + column]);
+    }
+  }
+
+  @Override
+  public void setRowRGB(int row, int[] values, int offset) throws IllegalArgumentException {
+    checkRegion(0, 0, row, this.width, 1, values, offset, 3);
+    checkValues(values, offset, this.width * 3);
+    ByteBuffer tileRow = this.tileRows[row / this.tileSize].duplicate();
+    byte[] span = new byte[Math.min(this.tileSize, this.width) * 3];
+    for (int column = 0; column < this.width; column += this.tileSize) {
+      int length = Math.min(this.tileSize, this.width - column) * 3;
+      for (int i = 0; i < length; i++) {
+        span[i] = (byte) values[offset++];
+      }
+      tileRow.position(index(column, row)).put(span, 0, length);
+    }
+  }
+
+  /**
+   * <p>Returns the position of the red value of the given pixel in the mapping of its row of
+   * tiles.</p>
+   *
+   * @param column a column of the image
+   * @param row    a row of the image
+   * @return the position of the pixel in its row of tiles
+   */
+  private int index(int column, int row) {
+    int tileColumn = column / this.tileSize;
+    int rowInTile = row % this.tileSize;
+    int columnInTile = column % this.tileSize;
+    return tileColumn * this.tileBytes + (rowInTile * this.tileSize + columnInTile) * 3;
+  }
+
+  /**
+   * <p>Checks that the given channel and pixel are present in this image.</p>
+   *
+   * @param channel a specific channel
+   * @param column  a specific column in the image
+   * @param row     a specific row in the image
+   * @throws IllegalArgumentException if the channel or pixel is not present in the image
+   */
+  private void checkPixel(int channel, int column, int row) throws IllegalArgumentException {
+    if (channel > 2 || channel < 0 || column < 0 || column >= this.width
+            || row < 0 || row >= this.height) {
+      throw new IllegalArgumentException("pixel not present at this location, invalid location.");
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package model.image;
+
+/**
+ * <p>Represents an image whose pixel values can be set while it is being built. Values are set
+ * either one at a time or a whole row at a time.</p>
+ */
+public interface WritableImage extends Image {
+
+  /**
+   * <p>Sets the value stored at the specified channel, column and row in this image.</p>
+   *
+   * @param channel a specific channel
+   * @param column  a specific column in the image
+   * @param row     a specific row in the image
+   * @param value   the value to be stored, between [0, 255]
+   * @throws IllegalArgumentException if the location is not present in the image or the value is
+   *                                  not between [0, 255]
+   */
+  void setPixelValue(int channel, int column, int row, int value) throws IllegalArgumentException;
+
+  /**
+   * <p>Sets the values of one channel of a whole row of this image from the buffer, starting at
+   * the given offset. {@code getWidth()} values are read from the buffer.</p>
+   *
+   * @param channel a specific channel
+   * @param row     a specific row in the image
+   * @param values  the buffer holding the values to be stored, each between [0, 255]
+   * @param offset  the position in the buffer of the first value
+   * @throws IllegalArgumentException if the channel or row is not present in the image, the buffer
+   *                                  is too small or a value is not between [0, 255]
+   */
+  void setRow(int channel, int row, int[] values, int offset) throws IllegalArgumentException;
+
+  /**
+   * <p>Sets all the channels of a whole row of this image from the buffer, starting at the given
+   * offset. The values are read interleaved in the same order as {@link Image#getRowRGB}
+   * writes them.</p>
+   *
+   * @param row    a specific row in the image
+   * @param values the buffer holding the values to be stored, each between [0, 255]
+   * @param offset the position in the buffer of the first value
+   * @throws IllegalArgumentException if the row is not present in the image, the buffer is too
+   *                                  small or a value is not between [0, 255]
+   */
+  void setRowRGB(int row, int[] values, int offset) throws IllegalArgumentException;
+}
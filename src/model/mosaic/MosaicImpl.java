@@ -1,47 +1,70 @@
 package model.mosaic;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Random;
 
+import model.Cacheable;
 import model.image.Image;
-import model.image.SimpleImage;
+import model.image.Images;
+import model.image.WritableImage;
+import model.parallel.RowBands;
+import model.progress.ProgressMonitor;
 
 /**
  * This class implements the Mosaic interface. It implements the interface in order to convert an
- * image to a mosaic image.
+ * image to a mosaic image. Apart from the input and output images it only keeps the seed of each
+ * pixel and a few running sums for each seed, so no objects are created per pixel. For an image
+ * stored outside of the heap not even the seed of each pixel is kept; it is found again when the
+ * mosaic is painted.
  */
-public class MosaicImpl implements Mosaic {
+public class MosaicImpl implements Mosaic, Cacheable {
 
   private int seeds;
-  private int[][][] mosaicImage;
+  private final Long randomSeed;
+  private final int parallelism;
 
   /**
    * Takes the no. of seeds using which the mosaic needs to be done and creates an MosaicImpl
-   * object.
+   * object. The seeds are placed differently every time an image is made mosaic.
    *
    * @param seeds the seeds used for converting an image to mosaic
    * @throws IllegalArgumentException if the number of seeds less than 1
    */
   public MosaicImpl(int seeds) throws IllegalArgumentException {
-    if (seeds < 1) {
-      throw new IllegalArgumentException("invalid seed value");
-    }
-    this.seeds = seeds;
+    this(seeds, null, RowBands.defaultParallelism());
   }
 
   /**
-   * Get the distance between a pixel and the seed.
+   * Takes the no. of seeds and the seed of the random number generator that places them. Every
+   * image of the same size is given the same seed points, so the output can be reproduced.
    *
-   * @param seedRow     the row of seed
-   * @param seedColumn  the column of seed
-   * @param pixelRow    the row of pixel
-   * @param pixelColumn the column of pixel
-   * @return the distance between these two points
+   * @param seeds      the seeds used for converting an image to mosaic
+   * @param randomSeed the seed of the random number generator that places the seeds
+   * @throws IllegalArgumentException if the number of seeds less than 1
    */
-  private double getDistance(double seedRow, double seedColumn, double pixelRow,
-                             double pixelColumn) {
-    return Math.sqrt(Math.pow(seedRow - pixelRow, 2) + Math.pow(seedColumn - pixelColumn, 2));
+  public MosaicImpl(int seeds, long randomSeed) throws IllegalArgumentException {
+    this(seeds, randomSeed, RowBands.defaultParallelism());
+  }
+
+  /**
+   * Takes the no. of seeds, the seed of the random number generator that places them and the
+   * maximum number of threads used. The output does not depend on the number of threads.
+   *
+   * @param seeds       the seeds used for converting an image to mosaic
+   * @param randomSeed  the seed of the random number generator that places the seeds, or null to
+   *                    place them differently every time
+   * @param parallelism the maximum number of threads used to make an image mosaic
+   * @throws IllegalArgumentException if the number of seeds or the parallelism is less than 1
+   */
+  public MosaicImpl(int seeds, Long randomSeed, int parallelism) throws IllegalArgumentException {
+    if (seeds < 1) {
+      throw new IllegalArgumentException("invalid seed value");
+    }
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism should be greater than 0.");
+    }
+    this.seeds = seeds;
+    this.randomSeed = randomSeed;
+    this.parallelism = parallelism;
   }
 
   /**
@@ -53,7 +76,7 @@ public class MosaicImpl implements Mosaic {
    */
   private int[][] getRandomSeedPoints(int rows, int cols) {
     int[][] randomSeedPoints = new int[seeds][2];
-    Random random = new Random();
+    Random random = this.randomSeed == null ? new Random() : new Random(this.randomSeed);
     for (int i = 0; i < seeds; i++) {
       randomSeedPoints[i][0] = random.nextInt(rows);
       randomSeedPoints[i][1] = random.nextInt(cols);
@@ -62,65 +85,66 @@ public class MosaicImpl implements Mosaic {
   }
 
   /**
-   * Creates clusters of pixels by assigning the pixel to the closest seed from all the chosen
-   * seeds.
+   * Assigns every pixel in the rows from {@code startRow} up to but not including {@code endRow}
+   * to the closest seed, storing the index of the seed of each pixel in {@code pixelSeeds} unless
+   * it is null, and adds the color of the pixel to the running sums of its seed. The closest seed
+   * is found through a {@link SeedGrid}, so only the seeds near a pixel are compared with it.
    *
-   * @param randomSeedPoints all the chosen seeds
-   * @param image            the image which is to be made mosaic
-   * @return clusters of pixels associated their seeds
+   * @param grid       the grid over the chosen seeds
+   * @param image      the image which is to be made mosaic
+   * @param pixelSeeds the seed of each pixel, stored row by row, or null if not kept
+   * @param colorSums  the sum of the red, green and blue values of the pixels of each seed
+   * @param pixelCount the number of pixels assigned to each seed
+   * @param startRow   the first row to be assigned
+   * @param endRow     the row after the last row to be assigned
    */
-  private HashMap<Integer, ArrayList<int[]>> getClusters(int[][] randomSeedPoints, Image image) {
-    HashMap<Integer, ArrayList<int[]>> clusters = new HashMap<>();
-    for (int i = 0; i < seeds; i++) {
-      clusters.put(i, new ArrayList<>());
-    }
-    for (int i = 0; i < image.getHeight(); i++) {
-      for (int j = 0; j < image.getWidth(); j++) {
-        double min = Double.MAX_VALUE;
-        int seedInd = 0;
-        for (int k = 0; k < seeds; k++) {
-          double dist = getDistance(randomSeedPoints[k][0], randomSeedPoints[k][1], i, j);
-          if (dist < min) {
-            min = dist;
-            seedInd = k;
-          }
+  private void assignPixels(SeedGrid grid, Image image, int[] pixelSeeds, long[] colorSums,
+                            long[] pixelCount, int startRow, int endRow) {
+    int width = image.getWidth();
+    int[] rowValues = new int[width * 3];
+    for (int row = startRow; row < endRow; row++) {
+      image.getRowRGB(row, rowValues, 0);
+      for (int col = 0; col < width; col++) {
+        int seedInd = grid.nearestSeed(row, col);
+        if (pixelSeeds != null) {
+          pixelSeeds[row * width + col] = seedInd;
         }
-        ArrayList<int[]> points = clusters.get(seedInd);
-        points.add(new int[]{i, j});
-        clusters.put(seedInd, points);
+        colorSums[seedInd * 3] += rowValues[col * 3];
+        colorSums[seedInd * 3 + 1] += rowValues[col * 3 + 1];
+        colorSums[seedInd * 3 + 2] += rowValues[col * 3 + 2];
+        pixelCount[seedInd]++;
       }
     }
-
-    return clusters;
   }
 
   /**
-   * Gets the cluster average of each cluster and assigns each point in the cluster this average.
+   * Turns the running color sums of each seed into the average color of its pixels.
    *
-   * @param clusters the clusters having pixels with their associated seeds
-   * @param image    the image to be made mosaic
+   * @param colorSums  the sum of the red, green and blue values of the pixels of each seed
+   * @param pixelCount the number of pixels assigned to each seed
+   * @return the average red, green and blue value of each seed
    */
-  private void setClusterAverage(HashMap<Integer, ArrayList<int[]>> clusters, Image image) {
-    for (HashMap.Entry<Integer, ArrayList<int[]>> seed : clusters.entrySet()) {
-      double red_average = 0;
-      double green_average = 0;
-      double blue_average = 0;
-      for (int[] points : seed.getValue()) {
-        red_average += image.getPixelValue(0, points[1], points[0]);
-        green_average += image.getPixelValue(1, points[1], points[0]);
-        blue_average += image.getPixelValue(2, points[1], points[0]);
-      }
-      red_average = red_average / seed.getValue().size();
-      green_average = green_average / seed.getValue().size();
-      blue_average = blue_average / seed.getValue().size();
-      for (int[] points : seed.getValue()) {
-        int row = points[0];
-        int col = points[1];
-        this.mosaicImage[0][col][row] = (int) red_average;
-        this.mosaicImage[1][col][row] = (int) green_average;
-        this.mosaicImage[2][col][row] = (int) blue_average;
+  private int[] getClusterAverages(long[] colorSums, long[] pixelCount) {
+    int[] averages = new int[seeds * 3];
+    for (int seed = 0; seed < seeds; seed++) {
+      if (pixelCount[seed] > 0) {
+        averages[seed * 3] = (int) (colorSums[seed * 3] / pixelCount[seed]);
+        averages[seed * 3 + 1] = (int) (colorSums[seed * 3 + 1] / pixelCount[seed]);
+        averages[seed * 3 + 2] = (int) (colorSums[seed * 3 + 2] / pixelCount[seed]);
       }
     }
+    return averages;
+  }
+
+  /**
+   * Returns a key made of the number of seeds and the seed of the random number generator. A
+   * mosaic that places its seeds differently every time has no key.
+   *
+   * @return the key of the mosaic, or null if it places its seeds differently every time
+   */
+  @Override
+  public String getCacheKey() {
+    return this.randomSeed == null ? null : "mosaic " + this.seeds + " " + this.randomSeed;
   }
 
   @Override
@@ -130,10 +154,50 @@ public class MosaicImpl implements Mosaic {
     }
     int width = image.getWidth();
     int height = image.getHeight();
-    this.mosaicImage = new int[3][width][height];
     int[][] randomSeedPoints = getRandomSeedPoints(height, width);
-    HashMap<Integer, ArrayList<int[]>> clusters = getClusters(randomSeedPoints, image);
-    setClusterAverage(clusters, image);
-    return new SimpleImage(this.mosaicImage);
+    SeedGrid grid = new SeedGrid(randomSeedPoints, height, width);
+    int[] pixelSeeds = Images.isOutOfCore(image) ? null : new int[width * height];
+    // The pixels are assigned to seeds in one pass and painted in another.
+    ProgressMonitor.current().begin(2L * height);
+
+    // Each band keeps its own sums, which are added up once all the bands are done.
+    int bandRows = (height + parallelism - 1) / parallelism;
+    int bands = (height + bandRows - 1) / bandRows;
+    long[][] bandColorSums = new long[bands][];
+    long[][] bandPixelCount = new long[bands][];
+    RowBands.run(width, height, bandRows, parallelism, (startRow, endRow) -> {
+      long[] colorSums = new long[seeds * 3];
+      long[] pixelCount = new long[seeds];
+      assignPixels(grid, image, pixelSeeds, colorSums, pixelCount, startRow, endRow);
+      bandColorSums[startRow / bandRows] = colorSums;
+      bandPixelCount[startRow / bandRows] = pixelCount;
+    });
+    long[] colorSums = bandColorSums[0];
+    long[] pixelCount = bandPixelCount[0];
+    for (int band = 1; band < bands; band++) {
+      for (int i = 0; i < seeds * 3; i++) {
+        colorSums[i] += bandColorSums[band][i];
+      }
+      for (int i = 0; i < seeds; i++) {
+        pixelCount[i] += bandPixelCount[band][i];
+      }
+    }
+    int[] averages = getClusterAverages(colorSums, pixelCount);
+
+    WritableImage mosaicImage = Images.createCompatible(image, width, height);
+    RowBands.run(width, height, parallelism, (startRow, endRow) -> {
+      int[] rowValues = new int[width * 3];
+      for (int row = startRow; row < endRow; row++) {
+        for (int col = 0; col < width; col++) {
+          int seedInd = pixelSeeds == null ? grid.nearestSeed(row, col)
+                  : pixelSeeds[row * width + col];
+          rowValues[col * 3] = averages[seedInd * 3];
+          rowValues[col * 3 + 1] = averages[seedInd * 3 + 1];
+          rowValues[col * 3 + 2] = averages[seedInd * 3 + 2];
+        }
+        mosaicImage.setRowRGB(row, rowValues, 0);
+      }
+    });
+    return mosaicImage;
   }
 }
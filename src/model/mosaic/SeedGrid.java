@@ -0,0 +1,108 @@
+package model.mosaic;
+
+/**
+ * <p>A uniform grid over the seeds of a mosaic, used to find the seed closest to a pixel without
+ * comparing the pixel with every seed. The image is divided into square cells sized so that each
+ * cell holds about one seed, and a search only visits the rings of cells around the pixel that
+ * can still hold a closer seed.</p>
+ *
+ * <p>Distances are compared as squared integer distances. When two seeds are equally close the
+ * one that comes first in the list of seeds is chosen.</p>
+ */
+class SeedGrid {
+
+  private final int[][] seedPoints;
+  private final int cellSize;
+  private final int gridRows;
+  private final int gridColumns;
+  private final int[] cellStart;
+  private final int[] cellSeeds;
+
+  /**
+   * <p>Creates the grid for the given seeds of an image of the given size.</p>
+   *
+   * @param seedPoints the row and column of each seed
+   * @param rows       the number of rows in the image
+   * @param columns    the number of columns in the image
+   */
+  SeedGrid(int[][] seedPoints, int rows, int columns) {
+    this.seedPoints = seedPoints;
+    this.cellSize = Math.max(1, (int) Math.sqrt((double) rows * columns / seedPoints.length));
+    this.gridRows = (rows + cellSize - 1) / cellSize;
+    this.gridColumns = (columns + cellSize - 1) / cellSize;
+    this.cellStart = new int[gridRows * gridColumns + 1];
+    this.cellSeeds = new int[seedPoints.length];
+
+    for (int[] seedPoint : seedPoints) {
+      cellStart[cellOf(seedPoint[0], seedPoint[1]) + 1]++;
+    }
+    for (int cell = 0; cell < gridRows * gridColumns; cell++) {
+      cellStart[cell + 1] += cellStart[cell];
+    }
+    int[] next = new int[gridRows * gridColumns];
+    for (int seed = 0; seed < seedPoints.length; seed++) {
+      int cell = cellOf(seedPoints[seed][0], seedPoints[seed][1]);
+      cellSeeds[cellStart[cell] + next[cell]++] = seed;
+    }
+  }
+
+  /**
+   * <p>Returns the index of the seed closest to the given pixel.</p>
+   *
+   * @param row    the row of the pixel
+   * @param column the column of the pixel
+   * @return the index of the closest seed
+   */
+  int nearestSeed(int row, int column) {
+    int pixelCellRow = row / cellSize;
+    int pixelCellColumn = column / cellSize;
+    int maxRing = Math.max(Math.max(pixelCellRow, gridRows - 1 - pixelCellRow),
+            Math.max(pixelCellColumn, gridColumns - 1 - pixelCellColumn));
+    long minDistance = Long.MAX_VALUE;
+    int seedInd = -1;
+
+    for (int ring = 0; ring <= maxRing; ring++) {
+      if (ring > 0) {
+        long closest = (long) (ring - 1) * cellSize + 1;
+        if (closest * closest > minDistance) {
+          break;
+        }
+      }
+      int firstRow = Math.max(0, pixelCellRow - ring);
+      int lastRow = Math.min(gridRows - 1, pixelCellRow + ring);
+      for (int cellRow = firstRow; cellRow <= lastRow; cellRow++) {
+        boolean edgeRow = cellRow == pixelCellRow - ring || cellRow == pixelCellRow + ring;
+        int step = edgeRow ? 1 : 2 * ring;
+        for (int cellColumn = pixelCellColumn - ring; cellColumn <= pixelCellColumn + ring;
+             cellColumn += step) {
+          if (cellColumn < 0 || cellColumn >= gridColumns) {
+            continue;
+          }
+          int cell = cellRow * gridColumns + cellColumn;
+          for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+            int seed = cellSeeds[i];
+            long rowDistance = seedPoints[seed][0] - row;
+            long columnDistance = seedPoints[seed][1] - column;
+            long distance = rowDistance * rowDistance + columnDistance * columnDistance;
+            if (distance < minDistance || (distance == minDistance && seed < seedInd)) {
+              minDistance = distance;
+              seedInd = seed;
+            }
+          }
+        }
+      }
+    }
+    return seedInd;
+  }
+
+  /**
+   * <p>Returns the cell of the grid that holds the given point.</p>
+   *
+   * @param row    the row of the point
+   * @param column the column of the point
+   * @return the index of the cell
+   */
+  private int cellOf(int row, int column) {
+    return (row / cellSize) * gridColumns + column / cellSize;
+  }
+}
@@ -0,0 +1,16 @@
+package model.parallel;
+
+/**
+ * <p>Represents a piece of work that is done on a band of consecutive rows of an image.</p>
+ */
+public interface BandTask {
+
+  /**
+   * <p>Does the work for the rows from {@code startRow} up to but not including
+   * {@code endRow}.</p>
+   *
+   * @param startRow the first row of the band
+   * @param endRow   the row after the last row of the band
+   */
+  void process(int startRow, int endRow);
+}
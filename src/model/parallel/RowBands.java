@@ -0,0 +1,141 @@
+package model.parallel;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import model.progress.ProgressMonitor;
+
+/**
+ * <p>Splits the rows of an image into bands and runs a {@link BandTask} on each of them. The bands
+ * are processed one after another on the calling thread, or on a fork-join pool when more than one
+ * thread is allowed and the image is large enough to be worth splitting.</p>
+ *
+ * <p>The rows of each band are reported as done to the {@link ProgressMonitor} of the calling
+ * thread once the band is processed, and no further band is started once the operation is
+ * cancelled.</p>
+ */
+public final class RowBands {
+
+  /**
+   * Images with fewer pixels than this are always processed on the calling thread.
+   */
+  public static final int MIN_PARALLEL_PIXELS = 1 << 16;
+
+  private static final int BAND_PIXELS = 1 << 18;
+  private static final int BANDS_PER_THREAD = 4;
+  private static final Map<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+  private RowBands() {
+    // Only has static methods.
+  }
+
+  /**
+   * <p>Returns the number of threads used when no parallelism is specified, which is the number of
+   * processors available.</p>
+   *
+   * @return the default degree of parallelism
+   */
+  public static int defaultParallelism() {
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * <p>Runs the task over all the rows of an image of the given size, using bands of a size chosen
+   * for the image width and the parallelism.</p>
+   *
+   * @param width       the width of the image
+   * @param height      the height of the image
+   * @param parallelism the maximum number of threads to use
+   * @param task        the work to be done on each band
+   * @throws IllegalArgumentException if the parallelism is less than 1
+   */
+  public static void run(int width, int height, int parallelism, BandTask task)
+          throws IllegalArgumentException {
+    int bandRows = Math.max(1, BAND_PIXELS / Math.max(1, width));
+    if (parallelism > 1) {
+      int perThread = (height + parallelism * BANDS_PER_THREAD - 1)
+              / (parallelism * BANDS_PER_THREAD);
+      bandRows = Math.max(1, Math.min(bandRows, perThread));
+    }
+    run(width, height, bandRows, parallelism, task);
+  }
+
+  /**
+   * <p>Runs the task over all the rows of an image of the given size, using bands of the given
+   * number of rows. The last band may be smaller.</p>
+   *
+   * @param width       the width of the image
+   * @param height      the height of the image
+   * @param bandRows    the number of rows in each band
+   * @param parallelism the maximum number of threads to use
+   * @param task        the work to be done on each band
+   * @throws IllegalArgumentException if the band size or parallelism is less than 1
+   */
+  public static void run(int width, int height, int bandRows, int parallelism, BandTask task)
+          throws IllegalArgumentException {
+    if (bandRows < 1 || parallelism < 1 || task == null) {
+      throw new IllegalArgumentException("invalid band parameters.");
+    }
+    ProgressMonitor monitor = ProgressMonitor.current();
+    BandTask tracked = (startRow, endRow) -> {
+      monitor.checkCancelled();
+      task.process(startRow, endRow);
+      monitor.worked(endRow - startRow);
+    };
+    int bands = (height + bandRows - 1) / bandRows;
+    if (parallelism == 1 || bands < 2 || (long) width * height < MIN_PARALLEL_PIXELS) {
+      for (int band = 0; band < bands; band++) {
+        tracked.process(band * bandRows, Math.min(height, (band + 1) * bandRows));
+      }
+      return;
+    }
+    ForkJoinPool pool = POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+    pool.invoke(new BandAction(tracked, height, bandRows, 0, bands));
+  }
+
+  /**
+   * <p>Fork-join action that splits a range of bands in half until a single band is left, which
+   * is then processed.</p>
+   */
+  private static class BandAction extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient BandTask task;
+    private final int height;
+    private final int bandRows;
+    private final int firstBand;
+    private final int lastBand;
+
+    /**
+     * <p>Creates an action that processes the bands from {@code firstBand} up to but not including
+     * {@code lastBand}.</p>
+     *
+     * @param task      the work to be done on each band
+     * @param height    the height of the image
+     * @param bandRows  the number of rows in each band
+     * @param firstBand the first band to be processed
+     * @param lastBand  the band after the last band to be processed
+     */
+    BandAction(BandTask task, int height, int bandRows, int firstBand, int lastBand) {
+      this.task = task;
+      this.height = height;
+      this.bandRows = bandRows;
+      this.firstBand = firstBand;
+      this.lastBand = lastBand;
+    }
+
+    @Override
+    protected void compute() {
+      if (lastBand - firstBand == 1) {
+        task.process(firstBand * bandRows, Math.min(height, (firstBand + 1) * bandRows));
+        return;
+      }
+      int middle = (firstBand + lastBand) >>> 1;
+      invokeAll(new BandAction(task, height, bandRows, firstBand, middle),
+              new BandAction(task, height, bandRows, middle, lastBand));
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package model.progress;
+
+/**
+ * <p>Lets an operation on an image be stopped from another thread. The operation checks the
+ * token between rows or bands of rows, and stops by throwing a {@link
+ * java.util.concurrent.CancellationException} once the token is cancelled.</p>
+ */
+public class CancellationToken {
+
+  private volatile boolean cancelled;
+
+  /**
+   * <p>Asks the operations using this token to stop. A cancelled token stays cancelled.</p>
+   */
+  public void cancel() {
+    this.cancelled = true;
+  }
+
+  /**
+   * <p>Tells whether the token was cancelled.</p>
+   *
+   * @return true if the operations using this token should stop
+   */
+  public boolean isCancelled() {
+    return this.cancelled;
+  }
+}
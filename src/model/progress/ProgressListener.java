@@ -0,0 +1,17 @@
+package model.progress;
+
+/**
+ * <p>Is told how far an operation on an image has got. It may be called from any of the threads
+ * the operation runs on, but never by two of them at once.</p>
+ */
+public interface ProgressListener {
+
+  /**
+   * <p>Called when the operation has got further. The time left can be estimated as {@code
+   * elapsedMillis * (1 - fraction) / fraction}.</p>
+   *
+   * @param fraction      the part of the operation that is done, between 0 and 1
+   * @param elapsedMillis the time since the operation started, in milliseconds
+   */
+  void progressed(double fraction, long elapsedMillis);
+}
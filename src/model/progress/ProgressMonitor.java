@@ -0,0 +1,156 @@
+package model.progress;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * <p>Tracks the progress of an operation on an image and whether it was cancelled. The operation
+ * is run through {@link #run(Supplier)}, which makes the monitor the current monitor of the
+ * calling thread until it returns. The engines that process the image find it through {@link
+ * #current()}, say how many units of work they have with {@link #begin(long)}, usually one per
+ * row, and report the units they finish with {@link #worked(long)}, which also stops them if the
+ * operation was cancelled.</p>
+ *
+ * <p>Outside of {@link #run(Supplier)} the current monitor does nothing, so the engines can
+ * report their progress whether or not anybody is listening.</p>
+ */
+public final class ProgressMonitor {
+
+  private static final double REPORT_STEP = 0.01;
+  private static final ThreadLocal<ProgressMonitor> CURRENT = new ThreadLocal<>();
+  private static final ProgressMonitor NONE = new ProgressMonitor(null, null);
+
+  private final CancellationToken token;
+  private final ProgressListener listener;
+  private final AtomicLong total;
+  private final AtomicLong done;
+  private long start;
+  private double reported;
+
+  /**
+   * <p>Creates a monitor that stops the operation once the token is cancelled and tells the
+   * listener how far it has got.</p>
+   *
+   * @param token    the token that cancels the operation, or null if it cannot be cancelled
+   * @param listener the listener told about the progress, or null if nobody listens
+   */
+  public ProgressMonitor(CancellationToken token, ProgressListener listener) {
+    this.token = token;
+    this.listener = listener;
+    this.total = new AtomicLong();
+    this.done = new AtomicLong();
+    this.start = System.currentTimeMillis();
+  }
+
+  /**
+   * <p>Returns the monitor of the operation running on the calling thread, or a monitor that
+   * does nothing if there is none.</p>
+   *
+   * @return the current monitor
+   */
+  public static ProgressMonitor current() {
+    ProgressMonitor monitor = CURRENT.get();
+    return monitor == null ? NONE : monitor;
+  }
+
+  /**
+   * <p>Runs an operation with this monitor as the current monitor of the calling thread, and
+   * reports it as done once it returns.</p>
+   *
+   * @param operation the operation
+   * @param <T>       the type of the result of the operation
+   * @return the result of the operation
+   * @throws CancellationException if the operation was cancelled
+   */
+  public <T> T run(Supplier<T> operation) throws CancellationException {
+    synchronized (this) {
+      this.start = System.currentTimeMillis();
+    }
+    return runPart(() -> {
+      T result = operation.get();
+      report(1);
+      return result;
+    });
+  }
+
+  /**
+   * <p>Runs part of an operation with this monitor as the current monitor of the calling thread,
+   * without reporting the operation as done. A part handed to another thread, such as a step of a
+   * lazily evaluated model, is run this way so it still reports its progress and can still be
+   * cancelled.</p>
+   *
+   * @param part the part of the operation
+   * @param <T>  the type of the result of the part
+   * @return the result of the part
+   * @throws CancellationException if the operation was cancelled
+   */
+  public <T> T runPart(Supplier<T> part) throws CancellationException {
+    ProgressMonitor previous = CURRENT.get();
+    CURRENT.set(this);
+    try {
+      checkCancelled();
+      return part.get();
+    } finally {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    }
+  }
+
+  /**
+   * <p>Adds units of work to the operation, before they are worked on.</p>
+   *
+   * @param units the number of units
+   */
+  public void begin(long units) {
+    this.total.addAndGet(units);
+  }
+
+  /**
+   * <p>Reports units of work as finished, and stops the operation if it was cancelled. The
+   * operation is only reported as done by {@link #run(Supplier)}, since more work may still be
+   * added by the parts of the operation that have not begun.</p>
+   *
+   * @param units the number of units
+   * @throws CancellationException if the operation was cancelled
+   */
+  public void worked(long units) throws CancellationException {
+    checkCancelled();
+    if (this.listener == null) {
+      return;
+    }
+    long finished = this.done.addAndGet(units);
+    long work = this.total.get();
+    if (work > 0 && finished < work) {
+      report((double) finished / work);
+    }
+  }
+
+  /**
+   * <p>Stops the operation if it was cancelled.</p>
+   *
+   * @throws CancellationException if the operation was cancelled
+   */
+  public void checkCancelled() throws CancellationException {
+    if (this.token != null && this.token.isCancelled()) {
+      throw new CancellationException("operation cancelled.");
+    }
+  }
+
+  /**
+   * <p>Tells the listener how far the operation has got, if it got at least one step further
+   * since it was last told.</p>
+   *
+   * @param fraction the part of the operation that is done
+   */
+  private synchronized void report(double fraction) {
+    if (this.listener != null && (fraction >= this.reported + REPORT_STEP
+            || fraction == 1 && this.reported < 1)) {
+      this.reported = fraction;
+      this.listener.progressed(fraction, System.currentTimeMillis() - this.start);
+    }
+  }
+}
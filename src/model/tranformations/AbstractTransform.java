@@ -1,15 +1,22 @@
 package model.tranformations;
 
+import java.util.Arrays;
+
+import model.Cacheable;
 import model.image.Image;
-import model.image.SimpleImage;
+import model.image.Images;
+import model.image.RunLengthEncoded;
+import model.image.WritableImage;
+import model.progress.ProgressMonitor;
 
 /**
  * <p>Abstract Transform class that implements the {@link Transform} interface. Implements the
  * applyTransformation method for the subclasses based on the transformation matrix.</p>
  */
-public abstract class AbstractTransform implements Transform {
+public abstract class AbstractTransform implements Transform, Cacheable {
 
   protected double[][] transformMatrix;
+  private volatile double[][][] lookupTables;
 
   /**
    * <p>Constructor to initialize the image on which the transformation is to be performed.</p>
@@ -18,42 +25,94 @@ public abstract class AbstractTransform implements Transform {
     this.transformMatrix = new double[3][3];
   }
 
+  /**
+   * <p>Returns a key made of the transformation matrix, which is all the result depends on.</p>
+   *
+   * @return the key of the transformation
+   */
+  @Override
+  public String getCacheKey() {
+    return "transform " + Arrays.deepToString(this.transformMatrix);
+  }
+
   @Override
   public Image applyTransformation(Image image) throws IllegalArgumentException {
     if (image == null) {
       throw new IllegalArgumentException("invalid image.");
     }
+    if (image instanceof RunLengthEncoded) {
+      return RunTransforms.transformRuns(this, (RunLengthEncoded) image);
+    }
     int width = image.getWidth();
     int height = image.getHeight();
-    int[][][] transformedImage = new int[3][width][height];
-    for (int i = 0; i < width; i++) {
-      for (int j = 0; j < height; j++) {
-        transformedImage[0][i][j] = transformAPixel(0, i, j, image);
-        transformedImage[1][i][j] = transformAPixel(1, i, j, image);
-        transformedImage[2][i][j] = transformAPixel(2, i, j, image);
-      }
+    WritableImage transformedImage = Images.createCompatible(image, width, height);
+    ProgressMonitor monitor = ProgressMonitor.current();
+    monitor.begin(height);
+    int[] row = new int[width * 3];
+    for (int j = 0; j < height; j++) {
+      image.getRowRGB(j, row, 0);
+      transformPixels(row, 0, width);
+      transformedImage.setRowRGB(j, row, 0);
+      monitor.worked(1);
+    }
+    return transformedImage;
+  }
+
+  @Override
+  public void transformPixels(int[] pixels, int offset, int pixelCount)
+          throws IllegalArgumentException {
+    if (pixels == null || offset < 0 || pixelCount < 0
+            || (long) pixelCount * 3 > (long) pixels.length - offset) {
+      throw new IllegalArgumentException("invalid pixels.");
+    }
+    int bits = 0;
+    for (int i = offset; i < offset + pixelCount * 3; i++) {
+      bits |= pixels[i];
+    }
+    if ((bits & ~0xFF) != 0) {
+      throw new IllegalArgumentException("invalid pixel value.");
+    }
+    double[][][] lookupTables = this.lookupTables;
+    if (lookupTables == null) {
+      lookupTables = createLookupTables();
+      this.lookupTables = lookupTables;
+    }
+    double[][] redTables = lookupTables[0];
+    double[][] greenTables = lookupTables[1];
+    double[][] blueTables = lookupTables[2];
+    for (int i = offset; i < offset + pixelCount * 3; i += 3) {
+      int red = pixels[i];
+      int green = pixels[i + 1];
+      int blue = pixels[i + 2];
+      pixels[i] = clamp(redTables[0][red] + redTables[1][green] + redTables[2][blue]);
+      pixels[i + 1] = clamp(greenTables[0][red] + greenTables[1][green] + greenTables[2][blue]);
+      pixels[i + 2] = clamp(blueTables[0][red] + blueTables[1][green] + blueTables[2][blue]);
     }
-    return new SimpleImage(transformedImage);
   }
 
   /**
-   * Applies the linear transformation matrix to a pixel {@code clamp} it's value and returns the
-   * transformed value of that pixel.
+   * <p>Creates lookup tables from the transformation matrix. As every channel only holds values
+   * between [0, 255], the product of each matrix entry with every possible value is computed once,
+   * and a pixel is then transformed using only lookups and additions. Entry {@code [out][in][v]}
+   * is the contribution of value {@code v} in channel {@code in} to channel {@code out}.</p>
+   *
+   * <p>The tables hold the same products the matrix multiplication computes, so the transformed
+   * values are exactly those of multiplying each pixel by the matrix. They are created the first
+   * time pixels are transformed, after the subclass has set up the matrix.</p>
    *
-   * @param channel     one of the channel in the image
-   * @param pixelColumn the column of the pixel
-   * @param pixelRow    the row of the location
-   * @return the transformed value of the pixel
+   * @return the lookup tables of the transformation matrix
    */
-  private int transformAPixel(int channel, int pixelColumn, int pixelRow, Image image) {
-    double[] linearTransformValues = this.transformMatrix[channel];
-    int red = image.getPixelValue(0, pixelColumn, pixelRow);
-    int green = image.getPixelValue(1, pixelColumn, pixelRow);
-    int blue = image.getPixelValue(2, pixelColumn, pixelRow);
-
-    double retVal = linearTransformValues[0] * red + linearTransformValues[1] * green
-            + linearTransformValues[2] * blue;
-    return clamp(retVal);
+  private double[][][] createLookupTables() {
+    double[][][] lookupTables = new double[3][3][256];
+    for (int out = 0; out < 3; out++) {
+      for (int in = 0; in < 3; in++) {
+        double matrixValue = this.transformMatrix[out][in];
+        for (int value = 0; value < 256; value++) {
+          lookupTables[out][in][value] = matrixValue * value;
+        }
+      }
+    }
+    return lookupTables;
   }
 
   /**
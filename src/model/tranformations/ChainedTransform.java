@@ -0,0 +1,109 @@
+package model.tranformations;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import model.Cacheable;
+import model.image.Image;
+import model.image.Images;
+import model.image.RunLengthEncoded;
+import model.image.WritableImage;
+import model.progress.ProgressMonitor;
+
+/**
+ * <p>This class implements the {@link Transform} interface. It applies a sequence of
+ * transformations in a single pass over the image. Each row of pixels is passed through every
+ * transformation in turn, so none of the images in between are built.</p>
+ *
+ * <p>Every transformation clamps and truncates its values, so the matrices cannot simply be
+ * multiplied together. Chaining the per-pixel work gives exactly the same result as applying the
+ * transformations one after another.</p>
+ */
+public class ChainedTransform implements Transform, Cacheable {
+
+  private final List<Transform> transforms;
+
+  /**
+   * <p>Creates a transformation that applies the given transformations in order.</p>
+   *
+   * @param transforms the transformations to be applied, first one first
+   * @throws IllegalArgumentException if the list is null, empty or holds a null transformation
+   */
+  public ChainedTransform(List<Transform> transforms) throws IllegalArgumentException {
+    if (transforms == null || transforms.isEmpty()) {
+      throw new IllegalArgumentException("invalid transformations.");
+    }
+    List<Transform> flattened = new ArrayList<>();
+    for (Transform transform : transforms) {
+      if (transform == null) {
+        throw new IllegalArgumentException("invalid transformations.");
+      } else if (transform instanceof ChainedTransform) {
+        flattened.addAll(((ChainedTransform) transform).transforms);
+      } else {
+        flattened.add(transform);
+      }
+    }
+    this.transforms = Collections.unmodifiableList(flattened);
+  }
+
+  /**
+   * <p>Returns the transformations applied by this transformation, first one first.</p>
+   *
+   * @return the chained transformations
+   */
+  public List<Transform> getTransforms() {
+    return this.transforms;
+  }
+
+  /**
+   * <p>Returns a key made of the keys of the chained transformations, in order.</p>
+   *
+   * @return the key of the transformation, or null if one of the chained transformations has no
+   *         key
+   */
+  @Override
+  public String getCacheKey() {
+    StringBuilder key = new StringBuilder("chain");
+    for (Transform transform : this.transforms) {
+      String transformKey = transform instanceof Cacheable
+              ? ((Cacheable) transform).getCacheKey() : null;
+      if (transformKey == null) {
+        return null;
+      }
+      key.append(" [").append(transformKey).append(']');
+    }
+    return key.toString();
+  }
+
+  @Override
+  public Image applyTransformation(Image image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("invalid image.");
+    }
+    if (image instanceof RunLengthEncoded) {
+      return RunTransforms.transformRuns(this, (RunLengthEncoded) image);
+    }
+    int width = image.getWidth();
+    int height = image.getHeight();
+    WritableImage transformedImage = Images.createCompatible(image, width, height);
+    ProgressMonitor monitor = ProgressMonitor.current();
+    monitor.begin(height);
+    int[] row = new int[width * 3];
+    for (int j = 0; j < height; j++) {
+      image.getRowRGB(j, row, 0);
+      transformPixels(row, 0, width);
+      transformedImage.setRowRGB(j, row, 0);
+      monitor.worked(1);
+    }
+    return transformedImage;
+  }
+
+  @Override
+  public void transformPixels(int[] pixels, int offset, int pixelCount)
+          throws IllegalArgumentException {
+    for (Transform transform : this.transforms) {
+      transform.transformPixels(pixels, offset, pixelCount);
+    }
+  }
+}
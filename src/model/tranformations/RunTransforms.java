@@ -0,0 +1,50 @@
+package model.tranformations;
+
+import model.image.RunLengthEncoded;
+import model.image.RunLengthImage;
+import model.progress.ProgressMonitor;
+
+/**
+ * <p>Applies transformations to images whose rows are made of runs of equal color. A
+ * transformation maps every pixel on its own, so all the pixels of a run are mapped to the same
+ * color, and only the color of each run needs to be transformed.</p>
+ */
+final class RunTransforms {
+
+  private RunTransforms() {
+  }
+
+  /**
+   * <p>Transforms the colors of the runs of the given image and returns the result as a
+   * {@link RunLengthImage} with the same runs.</p>
+   *
+   * @param transform the transformation to be applied
+   * @param image     the image whose runs are to be transformed
+   * @return the transformed image
+   */
+  static RunLengthImage transformRuns(Transform transform, RunLengthEncoded image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    RunLengthImage transformedImage = new RunLengthImage(width, height);
+    int[] runEnds = new int[width];
+    int[] colors = new int[width];
+    int[] pixels = new int[width * 3];
+    ProgressMonitor monitor = ProgressMonitor.current();
+    monitor.begin(height);
+    for (int j = 0; j < height; j++) {
+      int runCount = image.getRuns(j, runEnds, colors);
+      for (int i = 0; i < runCount; i++) {
+        pixels[i * 3] = (colors[i] >> 16) & 0xFF;
+        pixels[i * 3 + 1] = (colors[i] >> 8) & 0xFF;
+        pixels[i * 3 + 2] = colors[i] & 0xFF;
+      }
+      transform.transformPixels(pixels, 0, runCount);
+      for (int i = 0; i < runCount; i++) {
+        colors[i] = pixels[i * 3] << 16 | pixels[i * 3 + 1] << 8 | pixels[i * 3 + 2];
+      }
+      transformedImage.setRuns(j, runEnds, colors, runCount);
+      monitor.worked(1);
+    }
+    return transformedImage;
+  }
+}
@@ -16,4 +16,17 @@ public interface Transform {
    */
   Image applyTransformation(Image image) throws IllegalArgumentException;
 
+  /**
+   * <p>Applies the transformation in place on pixels stored interleaved in the buffer, in the
+   * same order as {@link Image#getRowRGB} stores them. This lets several transformations be
+   * applied one after another on a row of pixels without building the images in between.</p>
+   *
+   * @param pixels     the buffer holding the red, green and blue value of each pixel
+   * @param offset     the position in the buffer of the red value of the first pixel
+   * @param pixelCount the number of pixels to be transformed
+   * @throws IllegalArgumentException if the buffer does not hold the given number of pixels, or
+   *                                  holds a value outside of [0, 255]
+   */
+  void transformPixels(int[] pixels, int offset, int pixelCount) throws IllegalArgumentException;
+
 }
@@ -36,6 +36,16 @@ public interface Features {
    */
   void generatePattern(String pattern, String[] inputs);
 
+  /**
+   * Undoes the last edit made on the current image that was not undone.
+   */
+  void undo();
+
+  /**
+   * Redoes the last edit that was undone, if no other edit was made since.
+   */
+  void redo();
+
   /**
    * Stops the executing program.
    */
@@ -39,6 +39,8 @@ public class InteractiveGUI extends JFrame implements ImageView {
 
   private JButton loadB;
   private JButton saveB;
+  private JButton undoB;
+  private JButton redoB;
   private JButton generateB;
   private JButton operateB;
   private JButton exitB;
@@ -113,7 +115,7 @@ public class InteractiveGUI extends JFrame implements ImageView {
     loadB.addActionListener(l -> {
       final JFileChooser fileChooser = new JFileChooser(".");
       FileNameExtensionFilter filter = new FileNameExtensionFilter(
-              "JPG, PNG, WEBP & GIF Images", "jpg", "gif", "png", "webp");
+              "JPG, PNG, WEBP, GIF & RAW Images", "jpg", "gif", "png", "webp", "raw");
       fileChooser.setFileFilter(filter);
       fileChooser.setAcceptAllFileFilterUsed(false);
       int retValue = fileChooser.showOpenDialog(InteractiveGUI.this);
@@ -147,6 +149,10 @@ public class InteractiveGUI extends JFrame implements ImageView {
             String.valueOf(operations.getSelectedItem()),
             new String[]{this.operationText.getText()}));
 
+    undoB.addActionListener(l -> handler.undo());
+
+    redoB.addActionListener(l -> handler.redo());
+
     exitB.addActionListener(l -> handler.exitProgram());
   }
 
@@ -200,6 +206,8 @@ public class InteractiveGUI extends JFrame implements ImageView {
     this.hideAllInputs();
     if ("mosaic".equals(operation)) {
       this.showOperationTextField("seeds");
+    } else if ("ordered-dither".equals(operation)) {
+      this.showOperationTextField("matrix size or blue");
     } else {
       this.showOperationButton();
     }
@@ -283,20 +291,27 @@ public class InteractiveGUI extends JFrame implements ImageView {
   }
 
   /**
-   * Create a panel where the image save and exit option will reside.
+   * Create a panel where the image save, undo, redo and exit option will reside.
    *
-   * @return a panel with save and exit option inside it.
+   * @return a panel with save, undo, redo and exit option inside it.
    */
   private JPanel createSaveExitPanel() {
     JPanel saveExitPanel = new JPanel();
     saveExitPanel.setBorder(BorderFactory.createTitledBorder("Save/Exit options."));
-    saveExitPanel.setLayout(new GridLayout(2, 1));
+    saveExitPanel.setLayout(new GridLayout(3, 1));
     JPanel savePanel = new JPanel();
     savePanel.setBorder(BorderFactory.createTitledBorder("Save current image."));
     savePanel.setLayout(new FlowLayout());
     JLabel save = new JLabel("save image");
     this.saveB = new JButton("save");
     saveB.setActionCommand("save image");
+    JPanel undoRedoPanel = new JPanel();
+    undoRedoPanel.setBorder(BorderFactory.createTitledBorder("Undo/Redo edits."));
+    undoRedoPanel.setLayout(new FlowLayout());
+    this.undoB = new JButton("undo");
+    undoB.setActionCommand("undo");
+    this.redoB = new JButton("redo");
+    redoB.setActionCommand("redo");
     JPanel exitPanel = new JPanel();
     exitPanel.setBorder(BorderFactory.createTitledBorder("Exit application."));
     exitPanel.setLayout(new FlowLayout());
@@ -305,9 +320,12 @@ public class InteractiveGUI extends JFrame implements ImageView {
     exitB.setActionCommand("quit");
     savePanel.add(save);
     savePanel.add(saveB);
+    undoRedoPanel.add(undoB);
+    undoRedoPanel.add(redoB);
     exitPanel.add(exit);
     exitPanel.add(exitB);
     saveExitPanel.add(savePanel);
+    saveExitPanel.add(undoRedoPanel);
     saveExitPanel.add(exitPanel);
     return saveExitPanel;
   }
@@ -344,7 +362,8 @@ public class InteractiveGUI extends JFrame implements ImageView {
     operationSelect.setLayout(new FlowLayout());
     JLabel imageOperations = new JLabel("Image operations");
     this.operations = new JComboBox<>();
-    String[] commands = new String[]{"blur","sharpen", "sepia", "greyscale", "mosaic", "dither"};
+    String[] commands = new String[]{"blur","sharpen", "sepia", "greyscale", "mosaic", "dither",
+      "ordered-dither"};
     for (String command : commands) {
       operations.addItem(command);
     }
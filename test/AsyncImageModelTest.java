@@ -0,0 +1,173 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.AsyncImageModel;
+import model.EnhancedImageModel;
+import model.EnhancedImageModelImpl;
+import model.LazyImageModel;
+import model.ResultCache;
+import model.filters.BlurFilter;
+import model.image.Image;
+import model.image.PackedImage;
+import model.progress.CancellationToken;
+import model.progress.ProgressListener;
+import model.tranformations.SepiaToneTransform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * This class tests performing operations without blocking, with progress and cancellation, on an
+ * eager and on a lazy model.
+ */
+public class AsyncImageModelTest {
+
+  private ExecutorService lazyExecutor;
+  private PackedImage image;
+
+  /**
+   * A blur filter that counts how many times it is applied.
+   */
+  private static class CountingBlur extends BlurFilter {
+    private final AtomicInteger applied = new AtomicInteger();
+
+    @Override
+    public Image applyFilter(Image image) {
+      this.applied.incrementAndGet();
+      return super.applyFilter(image);
+    }
+  }
+
+  @Before
+  public void setup() {
+    // The lazy model computes on a thread of its own, so its operations have to find the monitor
+    // of the calling thread without it being the current monitor of their thread.
+    lazyExecutor = Executors.newSingleThreadExecutor();
+    image = new PackedImage(60, 200);
+    for (int row = 0; row < 200; row++) {
+      for (int col = 0; col < 60; col++) {
+        image.setPixelValue(0, col, row, (col * 4) % 256);
+        image.setPixelValue(1, col, row, row % 256);
+        image.setPixelValue(2, col, row, (col + row) % 256);
+      }
+    }
+  }
+
+  @After
+  public void tearDown() {
+    lazyExecutor.shutdownNow();
+  }
+
+  private EnhancedImageModel eager() {
+    return new EnhancedImageModelImpl(image);
+  }
+
+  private EnhancedImageModel lazy() {
+    return new LazyImageModel(lazyExecutor).fromImage(image);
+  }
+
+  private static void assertCancelled(CompletableFuture<EnhancedImageModel> future) {
+    try {
+      future.join();
+      fail("the operation should have been cancelled");
+    } catch (CompletionException e) {
+      assertTrue(e.getCause() instanceof CancellationException);
+    } catch (CancellationException e) {
+      // Cancelled as expected.
+    }
+  }
+
+  private void checkProgress(EnhancedImageModel model) {
+    List<Double> fractions = new CopyOnWriteArrayList<>();
+    ProgressListener listener = (fraction, elapsed) -> fractions.add(fraction);
+    Image result = new AsyncImageModel(model)
+            .applyTransform(new SepiaToneTransform(), null, listener).join().getModelImage();
+    assertEquals(ResultCache.hash(eager().applyTransform(new SepiaToneTransform())
+            .getModelImage()), ResultCache.hash(result));
+    assertTrue(fractions.size() > 10);
+    for (int i = 1; i < fractions.size(); i++) {
+      assertTrue(fractions.get(i) > fractions.get(i - 1));
+    }
+    assertEquals(1.0, fractions.get(fractions.size() - 1), 0);
+  }
+
+  private void checkCancelledBefore(EnhancedImageModel model) {
+    CountingBlur blur = new CountingBlur();
+    CancellationToken token = new CancellationToken();
+    token.cancel();
+    assertCancelled(new AsyncImageModel(model).applyFilter(blur, token, null));
+    assertEquals(0, blur.applied.get());
+  }
+
+  private void checkCancelledMidway(EnhancedImageModel model) {
+    CancellationToken token = new CancellationToken();
+    List<Double> fractions = new CopyOnWriteArrayList<>();
+    ProgressListener listener = (fraction, elapsed) -> {
+      fractions.add(fraction);
+      if (fraction >= 0.3) {
+        token.cancel();
+      }
+    };
+    assertCancelled(new AsyncImageModel(model)
+            .applyTransform(new SepiaToneTransform(), token, listener));
+    assertTrue(fractions.size() > 0);
+    assertTrue(fractions.get(fractions.size() - 1) < 1);
+  }
+
+  @Test
+  public void testProgressOnEagerModel() {
+    checkProgress(eager());
+  }
+
+  @Test
+  public void testProgressOnLazyModel() {
+    checkProgress(lazy());
+  }
+
+  @Test
+  public void testCancelledBeforeOnEagerModel() {
+    checkCancelledBefore(eager());
+  }
+
+  @Test
+  public void testCancelledBeforeOnLazyModel() {
+    checkCancelledBefore(lazy());
+  }
+
+  @Test
+  public void testCancelledMidwayOnEagerModel() {
+    checkCancelledMidway(eager());
+  }
+
+  @Test
+  public void testCancelledMidwayOnLazyModel() {
+    checkCancelledMidway(lazy());
+  }
+
+  @Test
+  public void testCancelledLazyModelCanBeComputedAgain() {
+    CountingBlur blur = new CountingBlur();
+    EnhancedImageModel blurred = lazy().applyFilter(blur);
+    CancellationToken token = new CancellationToken();
+    token.cancel();
+    assertCancelled(new AsyncImageModel(blurred)
+            .applyTransform(new SepiaToneTransform(), token, null));
+    assertEquals(0, blur.applied.get());
+
+    Image result = blurred.getModelImage();
+    assertEquals(1, blur.applied.get());
+    assertEquals(ResultCache.hash(eager().applyFilter(new BlurFilter()).getModelImage()),
+            ResultCache.hash(result));
+  }
+}
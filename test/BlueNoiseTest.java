@@ -0,0 +1,79 @@
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import model.dither.BlueNoise;
+import model.dither.OrderedDitherImpl;
+import model.image.GreyImage;
+import model.image.Image;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class tests the blue-noise tile and ordered dithering with it.
+ */
+public class BlueNoiseTest {
+
+  @Test
+  public void testEveryThresholdAppearsEquallyOften() {
+    Image tile = BlueNoise.getTile();
+    assertEquals(BlueNoise.TILE_SIZE, tile.getWidth());
+    assertEquals(BlueNoise.TILE_SIZE, tile.getHeight());
+    int[] counts = new int[256];
+    for (int row = 0; row < tile.getHeight(); row++) {
+      for (int col = 0; col < tile.getWidth(); col++) {
+        int threshold = tile.getPixelValue(0, col, row);
+        assertEquals(threshold, tile.getPixelValue(1, col, row));
+        assertEquals(threshold, tile.getPixelValue(2, col, row));
+        counts[threshold]++;
+      }
+    }
+    int perThreshold = BlueNoise.TILE_SIZE * BlueNoise.TILE_SIZE / 256;
+    for (int count : counts) {
+      assertEquals(perThreshold, count);
+    }
+  }
+
+  @Test
+  public void testLowThresholdsAreSpreadOut() {
+    // The pixels that turn white first in a dark area should not touch each other.
+    Image tile = BlueNoise.getTile();
+    int size = BlueNoise.TILE_SIZE;
+    for (int row = 0; row < size; row++) {
+      for (int col = 0; col < size; col++) {
+        if (tile.getPixelValue(0, col, row) >= 8) {
+          continue;
+        }
+        for (int dy = -1; dy <= 1; dy++) {
+          for (int dx = -1; dx <= 1; dx++) {
+            if (dx != 0 || dy != 0) {
+              assertTrue(tile.getPixelValue(0, (col + dx + size) % size,
+                      (row + dy + size) % size) >= 8);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testDitherFlatGrey() {
+    GreyImage image = new GreyImage(128, 128);
+    int[] row = new int[128];
+    Arrays.fill(row, 64);
+    for (int i = 0; i < 128; i++) {
+      image.setGreyRow(i, row, 0);
+    }
+    Image dithered = new OrderedDitherImpl(BlueNoise.getTile()).dither(image);
+    int white = 0;
+    for (int i = 0; i < 128; i++) {
+      for (int j = 0; j < 128; j++) {
+        int value = dithered.getPixelValue(0, j, i);
+        assertTrue(value == 0 || value == 255);
+        white += value / 255;
+      }
+    }
+    assertEquals(128 * 128 / 4, white);
+  }
+}
@@ -0,0 +1,116 @@
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.Cacheable;
+import model.CachingImageModel;
+import model.EnhancedImageModel;
+import model.EnhancedImageModelImpl;
+import model.LazyImageModel;
+import model.ResultCache;
+import model.filters.Filter;
+import model.image.Image;
+import model.image.PackedImage;
+import model.image.TiledImage;
+import model.tranformations.GreyscaleTransform;
+import model.tranformations.SepiaToneTransform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class tests the model that keeps the results of its operations in a cache.
+ */
+public class CachingImageModelTest {
+
+  /**
+   * A cacheable filter that inverts the image and counts how many times it is applied.
+   */
+  private static class CountingFilter implements Filter, Cacheable {
+    private final AtomicInteger applied = new AtomicInteger();
+
+    @Override
+    public Image applyFilter(Image image) {
+      this.applied.incrementAndGet();
+      PackedImage result = new PackedImage(image.getWidth(), image.getHeight());
+      for (int row = 0; row < image.getHeight(); row++) {
+        for (int col = 0; col < image.getWidth(); col++) {
+          for (int channel = 0; channel < 3; channel++) {
+            result.setPixelValue(channel, col, row,
+                    255 - image.getPixelValue(channel, col, row));
+          }
+        }
+      }
+      return result;
+    }
+
+    @Override
+    public String getCacheKey() {
+      return "invert";
+    }
+  }
+
+  private static PackedImage image() {
+    PackedImage image = new PackedImage(8, 6);
+    for (int row = 0; row < 6; row++) {
+      for (int col = 0; col < 8; col++) {
+        image.setPixelValue(0, col, row, col * 30);
+        image.setPixelValue(1, col, row, row * 40);
+        image.setPixelValue(2, col, row, 100);
+      }
+    }
+    return image;
+  }
+
+  @Test
+  public void testSameOperationOnSameContentIsComputedOnce() {
+    ResultCache cache = new ResultCache(1 << 20);
+    CountingFilter filter = new CountingFilter();
+    EnhancedImageModel model = new CachingImageModel(new EnhancedImageModelImpl(), cache);
+    Image first = model.fromImage(image()).applyFilter(filter).getModelImage();
+    Image second = model.fromImage(image()).applyFilter(filter).getModelImage();
+    assertEquals(1, filter.applied.get());
+    assertSame(first, second);
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+  }
+
+  @Test
+  public void testLazyModelStaysLazy() {
+    ResultCache cache = new ResultCache(1 << 20);
+    CountingFilter filter = new CountingFilter();
+    EnhancedImageModel model = new CachingImageModel(new LazyImageModel(), cache)
+            .fromImage(image());
+    EnhancedImageModel filtered = model.applyFilter(filter)
+            .applyTransform(new SepiaToneTransform())
+            .applyTransform(new GreyscaleTransform());
+    assertEquals(0, filter.applied.get());
+    assertEquals(0, cache.getMisses());
+    assertTrue(((CachingImageModel) filtered).getDelegate() instanceof LazyImageModel);
+
+    Image result = filtered.getModelImage();
+    assertEquals(1, filter.applied.get());
+    Image expected = new EnhancedImageModelImpl(image()).applyFilter(new CountingFilter())
+            .applyTransform(new SepiaToneTransform())
+            .applyTransform(new GreyscaleTransform()).getModelImage();
+    assertEquals(ResultCache.hash(expected), ResultCache.hash(result));
+
+    model.applyFilter(filter).getModelImage();
+    assertEquals(1, filter.applied.get());
+    assertEquals(1, cache.getHits());
+  }
+
+  @Test
+  public void testOperationsOutsideOfTheHeapAreNotCached() {
+    ResultCache cache = new ResultCache(1 << 20);
+    CountingFilter filter = new CountingFilter();
+    EnhancedImageModel model = new CachingImageModel(new EnhancedImageModelImpl(), cache)
+            .fromImage(new TiledImage(8, 6));
+    model.applyFilter(filter).getModelImage();
+    model.applyFilter(filter).getModelImage();
+    assertEquals(2, filter.applied.get());
+    assertEquals(0, cache.getHits());
+    assertEquals(0, cache.getMisses());
+  }
+}
@@ -0,0 +1,67 @@
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+
+import javax.imageio.ImageIO;
+
+import controller.ControllerImpl;
+import model.EnhancedImageModelImpl;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * This class tests the Controller for scripts.
+ */
+public class ControllerImplTest {
+
+  private static File writeImage(File directory) throws IOException {
+    BufferedImage image = new BufferedImage(12, 9, BufferedImage.TYPE_3BYTE_BGR);
+    for (int row = 0; row < 9; row++) {
+      for (int col = 0; col < 12; col++) {
+        image.setRGB(col, row, col * 20 << 16 | row * 25 << 8 | (col + row) * 10);
+      }
+    }
+    File file = new File(directory, "image.png");
+    ImageIO.write(image, "png", file);
+    return file;
+  }
+
+  private static void run(String script) throws FileNotFoundException {
+    new ControllerImpl(new StringReader(script), new EnhancedImageModelImpl()).processInput();
+  }
+
+  @Test
+  public void testLoadRegion() throws IOException {
+    File directory = Files.createTempDirectory("controller-test").toFile();
+    File image = writeImage(directory);
+    File saved = new File(directory, "region.png");
+    run("load-region: 3 2 4 5 " + image.getPath() + "\nsave: " + saved.getPath() + "\nq\n");
+
+    BufferedImage source = ImageIO.read(image);
+    BufferedImage region = ImageIO.read(saved);
+    assertEquals(4, region.getWidth());
+    assertEquals(5, region.getHeight());
+    for (int row = 0; row < 5; row++) {
+      for (int col = 0; col < 4; col++) {
+        assertEquals(source.getRGB(col + 3, row + 2), region.getRGB(col, row));
+      }
+    }
+    saved.delete();
+    image.delete();
+    directory.delete();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testLoadRegionOutsideOfTheImage() throws IOException {
+    File directory = Files.createTempDirectory("controller-test").toFile();
+    directory.deleteOnExit();
+    File image = writeImage(directory);
+    image.deleteOnExit();
+    run("load-region: 20 0 4 5 " + image.getPath() + "\nq\n");
+  }
+}
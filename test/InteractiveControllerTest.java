@@ -6,6 +6,8 @@ import java.io.FileNotFoundException;
 import controller.Controller;
 import controller.InteractiveController;
 import model.EnhancedImageModel;
+import model.filters.Filter;
+import model.generateshapes.GeneratePattern;
 import view.Features;
 import view.ImageView;
 
@@ -22,6 +24,35 @@ public class InteractiveControllerTest {
   private ImageView view;
   private Features controller;
 
+  /**
+   * A mock model whose filters fail once it is told to, as do those of the models made from it.
+   */
+  private static class FailingModel extends MockModel {
+    private final StringBuilder log;
+    private final boolean[] failing;
+
+    FailingModel(StringBuilder log, boolean[] failing) {
+      super(log);
+      this.log = log;
+      this.failing = failing;
+    }
+
+    @Override
+    public EnhancedImageModel applyFilter(Filter filter) {
+      if (this.failing[0]) {
+        throw new IllegalArgumentException("filter failed.");
+      }
+      super.applyFilter(filter);
+      return new FailingModel(this.log, this.failing);
+    }
+
+    @Override
+    public EnhancedImageModel generateImage(GeneratePattern pattern) {
+      super.generateImage(pattern);
+      return new FailingModel(this.log, this.failing);
+    }
+  }
+
   @Before
   public void setup() {
     modelLog = new StringBuilder();
@@ -53,15 +84,69 @@ public class InteractiveControllerTest {
   @Test
   public void testControllerGeneratePattern() throws FileNotFoundException {
     controller.generatePattern("checkerboard", new String[]{"8"});
-    assertEquals("pattern generated got the model got the model ", modelLog.toString());
+    assertEquals("pattern generated got the model ", modelLog.toString());
     assertEquals("Show image called ", viewLog.toString());
   }
 
   @Test
   public void testControllerImageOperation() throws FileNotFoundException {
     controller.performImageOperation("blur", new String[]{""});
-    assertEquals("filter done got the model got the model ", modelLog.toString());
+    assertEquals("filter done got the model ", modelLog.toString());
     assertEquals("Show image called ", viewLog.toString());
   }
 
+  @Test
+  public void testControllerUndoRedo() {
+    controller.generatePattern("checkerboard", new String[]{"8"});
+    controller.performImageOperation("blur", new String[]{""});
+    controller.undo();
+    controller.redo();
+    assertEquals("pattern generated got the model filter done got the model got the model "
+            + "got the model ", modelLog.toString());
+    assertEquals("Show image called Show image called Show image called Show image called ",
+            viewLog.toString());
+  }
+
+  @Test
+  public void testControllerUndoWithoutEdits() {
+    controller.undo();
+    controller.redo();
+    assertEquals("", modelLog.toString());
+    assertEquals("error msg called error msg called ", viewLog.toString());
+  }
+
+  @Test
+  public void testControllerUndoReplaysEvictedEdits() {
+    controller = new InteractiveController(view, model, 0);
+    controller.generatePattern("checkerboard", new String[]{"8"});
+    controller.performImageOperation("blur", new String[]{""});
+    controller.performImageOperation("sharpen", new String[]{""});
+    controller.performImageOperation("blur", new String[]{""});
+    modelLog.setLength(0);
+    controller.undo();
+    assertEquals("got the model ", modelLog.toString());
+    modelLog.setLength(0);
+    controller.undo();
+    assertEquals("filter done got the model got the model ", modelLog.toString());
+  }
+
+  @Test
+  public void testControllerUndoKeepsStateWhenReplayFails() {
+    boolean[] failing = {false};
+    controller = new InteractiveController(view, new FailingModel(modelLog, failing), 0);
+    controller.generatePattern("checkerboard", new String[]{"8"});
+    controller.performImageOperation("blur", new String[]{""});
+    controller.performImageOperation("sharpen", new String[]{""});
+    controller.performImageOperation("blur", new String[]{""});
+    controller.undo();
+    failing[0] = true;
+    viewLog.setLength(0);
+    controller.undo();
+    assertEquals("error msg called ", viewLog.toString());
+    viewLog.setLength(0);
+    controller.redo();
+    controller.redo();
+    assertEquals("Show image called error msg called ", viewLog.toString());
+  }
+
 }
\ No newline at end of file
@@ -1,5 +1,4 @@
 import model.EnhancedImageModel;
-import model.ImageModel;
 import model.dither.Dither;
 import model.filters.Filter;
 import model.generateshapes.GeneratePattern;
@@ -41,17 +40,17 @@ public class MockModel implements EnhancedImageModel {
   }
 
   @Override
-  public ImageModel applyFilter(Filter filter) {
+  public EnhancedImageModel applyFilter(Filter filter) {
     return new MockModel(log.append("filter done "));
   }
 
   @Override
-  public ImageModel applyTransform(Transform transform) {
+  public EnhancedImageModel applyTransform(Transform transform) {
     return new MockModel(log.append("transform "));
   }
 
   @Override
-  public ImageModel generateImage(GeneratePattern pattern) {
+  public EnhancedImageModel generateImage(GeneratePattern pattern) {
     return new MockModel(log.append("pattern generated "));
   }
 
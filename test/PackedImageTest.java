@@ -0,0 +1,145 @@
+import org.junit.Test;
+
+import model.image.PackedImage;
+import model.image.PixelLayout;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * This class tests the image backed by a flat array of bytes, in both of its layouts.
+ */
+public class PackedImageTest {
+
+  private static final int WIDTH = 5;
+  private static final int HEIGHT = 4;
+
+  private static int value(int channel, int column, int row) {
+    return (channel * 80 + column * 13 + row * 29) % 256;
+  }
+
+  private static PackedImage filled(PixelLayout layout) {
+    PackedImage image = new PackedImage(WIDTH, HEIGHT, layout);
+    for (int row = 0; row < HEIGHT; row++) {
+      for (int col = 0; col < WIDTH; col++) {
+        for (int channel = 0; channel < 3; channel++) {
+          image.setPixelValue(channel, col, row, value(channel, col, row));
+        }
+      }
+    }
+    return image;
+  }
+
+  private static void checkAccessors(PixelLayout layout) {
+    PackedImage image = filled(layout);
+    assertEquals(layout, image.getLayout());
+    assertEquals(WIDTH, image.getWidth());
+    assertEquals(HEIGHT, image.getHeight());
+
+    int[] rgb = new int[WIDTH * 3 + 2];
+    image.getRowRGB(2, rgb, 2);
+    int[] channelRow = new int[WIDTH];
+    for (int channel = 0; channel < 3; channel++) {
+      image.getRow(channel, 2, channelRow, 0);
+      for (int col = 0; col < WIDTH; col++) {
+        assertEquals(value(channel, col, 2), rgb[2 + col * 3 + channel]);
+        assertEquals(value(channel, col, 2), channelRow[col]);
+      }
+    }
+
+    int[] region = new int[1 + 3 * 2];
+    image.getRegion(1, 1, 2, 3, 2, region, 1);
+    int index = 1;
+    for (int row = 2; row < 4; row++) {
+      for (int col = 1; col < 4; col++) {
+        assertEquals(value(1, col, row), region[index++]);
+      }
+    }
+  }
+
+  private static void checkWriters(PixelLayout layout) {
+    PackedImage image = new PackedImage(WIDTH, HEIGHT, layout);
+    int[] rgb = new int[1 + WIDTH * 3];
+    for (int i = 1; i < rgb.length; i++) {
+      rgb[i] = i * 10;
+    }
+    image.setRowRGB(3, rgb, 1);
+    int[] green = {7, 6, 5, 4, 3};
+    image.setRow(1, 0, green, 0);
+    for (int col = 0; col < WIDTH; col++) {
+      for (int channel = 0; channel < 3; channel++) {
+        assertEquals(rgb[1 + col * 3 + channel], image.getPixelValue(channel, col, 3));
+        assertEquals(channel == 1 ? green[col] : 0, image.getPixelValue(channel, col, 0));
+        assertEquals(0, image.getPixelValue(channel, col, 1));
+      }
+    }
+  }
+
+  @Test
+  public void testDefaultLayoutIsInterleaved() {
+    assertEquals(PixelLayout.INTERLEAVED, new PackedImage(2, 2).getLayout());
+  }
+
+  @Test
+  public void testInterleavedAccessors() {
+    checkAccessors(PixelLayout.INTERLEAVED);
+  }
+
+  @Test
+  public void testPlanarAccessors() {
+    checkAccessors(PixelLayout.PLANAR);
+  }
+
+  @Test
+  public void testInterleavedWriters() {
+    checkWriters(PixelLayout.INTERLEAVED);
+  }
+
+  @Test
+  public void testPlanarWriters() {
+    checkWriters(PixelLayout.PLANAR);
+  }
+
+  @Test
+  public void testLayoutsHoldTheSamePixels() {
+    PackedImage interleaved = filled(PixelLayout.INTERLEAVED);
+    PackedImage planar = filled(PixelLayout.PLANAR);
+    int[] first = new int[WIDTH * 3];
+    int[] second = new int[WIDTH * 3];
+    for (int row = 0; row < HEIGHT; row++) {
+      interleaved.getRowRGB(row, first, 0);
+      planar.getRowRGB(row, second, 0);
+      assertArrayEquals(first, second);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSize() {
+    new PackedImage(0, 3);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidValue() {
+    new PackedImage(2, 2, PixelLayout.PLANAR).setPixelValue(0, 0, 0, 256);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidLocation() {
+    new PackedImage(2, 2, PixelLayout.PLANAR).getPixelValue(0, 2, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidChannel() {
+    new PackedImage(2, 2).getPixelValue(3, 0, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBufferTooSmall() {
+    new PackedImage(4, 2).getRowRGB(0, new int[11], 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidRowValue() {
+    new PackedImage(2, 2, PixelLayout.PLANAR).setRowRGB(0, new int[]{0, 0, 0, 0, -1, 0}, 0);
+  }
+}
@@ -0,0 +1,182 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Random;
+
+import model.filters.BlurFilter;
+import model.image.GreyImage;
+import model.image.Image;
+import model.image.Images;
+import model.image.MappedImage;
+import model.image.PackedImage;
+import model.image.PixelLayout;
+import model.image.RawImageFile;
+import model.image.TiledImage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class tests reading and writing images in the raw image format.
+ */
+public class RawImageFileTest {
+
+  private File directory;
+
+  @Before
+  public void setup() throws IOException {
+    directory = Files.createTempDirectory("raw-image-test").toFile();
+    directory.deleteOnExit();
+  }
+
+  private File newFile(String name) {
+    File file = new File(directory, name);
+    file.deleteOnExit();
+    return file;
+  }
+
+  private static PackedImage randomImage(int width, int height, PixelLayout layout, long seed) {
+    PackedImage image = new PackedImage(width, height, layout);
+    Random random = new Random(seed);
+    for (int row = 0; row < height; row++) {
+      for (int col = 0; col < width; col++) {
+        for (int channel = 0; channel < 3; channel++) {
+          image.setPixelValue(channel, col, row, random.nextInt(256));
+        }
+      }
+    }
+    return image;
+  }
+
+  private static void assertSamePixels(Image expected, Image actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int row = 0; row < expected.getHeight(); row++) {
+      for (int col = 0; col < expected.getWidth(); col++) {
+        for (int channel = 0; channel < 3; channel++) {
+          assertEquals(expected.getPixelValue(channel, col, row),
+                  actual.getPixelValue(channel, col, row));
+        }
+      }
+    }
+  }
+
+  private static void writeBytes(File file, long position, byte... bytes) throws IOException {
+    try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+      raw.seek(position);
+      raw.write(bytes);
+    }
+  }
+
+  @Test
+  public void testRoundTripInterleaved() throws IOException {
+    PackedImage image = randomImage(37, 23, PixelLayout.INTERLEAVED, 1);
+    File file = newFile("interleaved.raw");
+    RawImageFile.write(image, file);
+    assertEquals(RawImageFile.HEADER_SIZE + 37 * 23 * 3, file.length());
+    assertTrue(RawImageFile.isRawImage(file));
+    MappedImage read = RawImageFile.read(file);
+    assertEquals(PixelLayout.INTERLEAVED, read.getLayout());
+    assertSamePixels(image, read);
+  }
+
+  @Test
+  public void testRoundTripPlanar() throws IOException {
+    PackedImage image = randomImage(19, 41, PixelLayout.PLANAR, 2);
+    File file = newFile("planar.raw");
+    RawImageFile.write(image, file);
+    MappedImage read = RawImageFile.read(file);
+    assertEquals(PixelLayout.PLANAR, read.getLayout());
+    assertSamePixels(image, read);
+    int[] row = new int[19 * 3];
+    int[] expected = new int[19 * 3];
+    read.getRowRGB(40, row, 0);
+    image.getRowRGB(40, expected, 0);
+    for (int i = 0; i < row.length; i++) {
+      assertEquals(expected[i], row[i]);
+    }
+  }
+
+  @Test
+  public void testOtherImagesAreWrittenInterleaved() throws IOException {
+    GreyImage image = new GreyImage(5, 3);
+    image.setGreyRow(1, new int[]{0, 50, 100, 150, 200}, 0);
+    File file = newFile("grey.raw");
+    RawImageFile.write(image, file);
+    MappedImage read = RawImageFile.read(file);
+    assertEquals(PixelLayout.INTERLEAVED, read.getLayout());
+    assertSamePixels(image, read);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadMagic() throws IOException {
+    File file = newFile("magic.raw");
+    RawImageFile.write(randomImage(4, 4, PixelLayout.INTERLEAVED, 3), file);
+    writeBytes(file, 0, (byte) 'P', (byte) 'N', (byte) 'G', (byte) ' ');
+    assertFalse(RawImageFile.isRawImage(file));
+    RawImageFile.read(file);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadVersion() throws IOException {
+    File file = newFile("version.raw");
+    RawImageFile.write(randomImage(4, 4, PixelLayout.INTERLEAVED, 4), file);
+    writeBytes(file, 4, (byte) 2);
+    RawImageFile.read(file);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadLayout() throws IOException {
+    File file = newFile("layout.raw");
+    RawImageFile.write(randomImage(4, 4, PixelLayout.INTERLEAVED, 5), file);
+    writeBytes(file, 5, (byte) 7);
+    RawImageFile.read(file);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSizeDoesNotMatchHeader() throws IOException {
+    File file = newFile("size.raw");
+    RawImageFile.write(randomImage(4, 4, PixelLayout.INTERLEAVED, 6), file);
+    writeBytes(file, 12, (byte) 0, (byte) 0, (byte) 0, (byte) 5);
+    RawImageFile.read(file);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTruncatedHeader() throws IOException {
+    File file = newFile("short.raw");
+    writeBytes(file, 0, (byte) 'R', (byte) 'A', (byte) 'W', (byte) 'I', (byte) 1);
+    assertTrue(RawImageFile.isRawImage(file));
+    RawImageFile.read(file);
+  }
+
+  @Test
+  public void testOverwritingMappedFile() throws IOException {
+    File file = newFile("overwrite.raw");
+    PackedImage first = randomImage(16, 16, PixelLayout.INTERLEAVED, 7);
+    PackedImage second = randomImage(8, 12, PixelLayout.PLANAR, 8);
+    RawImageFile.write(first, file);
+    MappedImage mapped = RawImageFile.read(file);
+    RawImageFile.write(second, file);
+    assertSamePixels(first, mapped);
+    assertSamePixels(second, RawImageFile.read(file));
+    assertFalse(new File(directory, "overwrite.raw.tmp").exists());
+  }
+
+  @Test
+  public void testMappedImagesAreProcessedOutOfCore() throws IOException {
+    PackedImage image = randomImage(40, 30, PixelLayout.INTERLEAVED, 9);
+    File file = newFile("process.raw");
+    RawImageFile.write(image, file);
+    MappedImage mapped = RawImageFile.read(file);
+    assertTrue(Images.isOutOfCore(mapped));
+    assertTrue(Images.createCompatible(mapped, 40, 30) instanceof TiledImage);
+    Image blurred = new BlurFilter().applyFilter(mapped);
+    assertTrue(blurred instanceof TiledImage);
+    assertSamePixels(new BlurFilter().applyFilter(image), blurred);
+  }
+}
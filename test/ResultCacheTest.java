@@ -0,0 +1,133 @@
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import model.ResultCache;
+import model.generateshapes.CheckerBoard;
+import model.image.Image;
+import model.image.Images;
+import model.image.MappedImage;
+import model.image.PackedImage;
+import model.image.TiledImage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class tests the cache of the results of image operations.
+ */
+public class ResultCacheTest {
+
+  private static final long IMAGE_BYTES = 10 * 10 * 3;
+
+  private static PackedImage image(int value) {
+    PackedImage image = new PackedImage(10, 10);
+    for (int row = 0; row < 10; row++) {
+      for (int col = 0; col < 10; col++) {
+        image.setPixelValue(0, col, row, value);
+        image.setPixelValue(1, col, row, (value + col) % 256);
+        image.setPixelValue(2, col, row, (value + row) % 256);
+      }
+    }
+    return image;
+  }
+
+  @Test
+  public void testHashDependsOnContentOnly() {
+    assertEquals(ResultCache.hash(image(1)), ResultCache.hash(image(1)));
+    assertNotEquals(ResultCache.hash(image(1)), ResultCache.hash(image(2)));
+    assertNotEquals(ResultCache.derive(7, "blur"), ResultCache.derive(7, "sharpen"));
+    assertNotEquals(ResultCache.derive(7, "blur"), ResultCache.derive(8, "blur"));
+  }
+
+  @Test
+  public void testHitsAndMisses() {
+    ResultCache cache = new ResultCache(IMAGE_BYTES * 4);
+    PackedImage first = image(1);
+    assertNull(cache.get(1));
+    cache.put(1, first);
+    assertSame(first, cache.get(1));
+    assertSame(first, cache.get(1));
+    assertNull(cache.get(2));
+    assertEquals(2, cache.getHits());
+    assertEquals(2, cache.getMisses());
+    assertEquals(0, cache.getDiskHits());
+    assertEquals(0.5, cache.getHitRate(), 1e-9);
+  }
+
+  @Test
+  public void testLeastRecentlyUsedIsDroppedFirst() {
+    ResultCache cache = new ResultCache(IMAGE_BYTES * 3);
+    cache.put(1, image(1));
+    cache.put(2, image(2));
+    cache.put(3, image(3));
+    cache.get(1);
+    cache.put(4, image(4));
+    assertNull(cache.get(2));
+    assertNotNull(cache.get(1));
+    assertNotNull(cache.get(3));
+    assertNotNull(cache.get(4));
+  }
+
+  @Test
+  public void testResultsAreKeptWithinTheBudget() {
+    ResultCache cache = new ResultCache(IMAGE_BYTES * 2 - 1);
+    cache.put(1, image(1));
+    cache.put(2, image(2));
+    assertNull(cache.get(1));
+    assertNotNull(cache.get(2));
+
+    ResultCache tiny = new ResultCache(IMAGE_BYTES - 1);
+    tiny.put(1, image(1));
+    assertNull(tiny.get(1));
+  }
+
+  @Test
+  public void testResultsOutsideOfTheHeapAreNotKept() {
+    assertEquals(0, Images.heapBytes(new TiledImage(100, 100)));
+    assertEquals(IMAGE_BYTES, Images.heapBytes(image(1)));
+
+    ResultCache cache = new ResultCache(IMAGE_BYTES);
+    cache.put(1, image(1));
+    cache.put(2, new TiledImage(100, 100));
+    cache.put(3, new CheckerBoard(2).generate());
+    assertNotNull(cache.get(1));
+    assertNull(cache.get(2));
+    assertNull(cache.get(3));
+  }
+
+  @Test
+  public void testDroppedResultsAreReadBackFromDisk() throws IOException {
+    File directory = Files.createTempDirectory("result-cache-test").toFile();
+    directory.deleteOnExit();
+    ResultCache cache = new ResultCache(IMAGE_BYTES, directory);
+    PackedImage first = image(1);
+    cache.put(1, first);
+    cache.put(2, image(2));
+    assertEquals(1, directory.listFiles().length);
+
+    Image read = cache.get(1);
+    assertTrue(read instanceof MappedImage);
+    assertEquals(ResultCache.hash(first), ResultCache.hash(read));
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getDiskHits());
+    assertNull(cache.get(3));
+    assertEquals(1, cache.getMisses());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeBudget() {
+    new ResultCache(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullResult() {
+    new ResultCache(IMAGE_BYTES).put(1, null);
+  }
+}
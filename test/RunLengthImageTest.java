@@ -0,0 +1,117 @@
+import org.junit.Test;
+
+import model.image.PackedImage;
+import model.image.RunLengthImage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * This class tests the image that stores its rows as runs of the same color.
+ */
+public class RunLengthImageTest {
+
+  private static final int RED = 0xFF0000;
+  private static final int GREEN = 0x00FF00;
+  private static final int BLUE = 0x0000FF;
+
+  private static int[] runEnds(RunLengthImage image, int row) {
+    int[] ends = new int[image.getRunCount(row)];
+    image.getRuns(row, ends, new int[ends.length]);
+    return ends;
+  }
+
+  private static int[] runColors(RunLengthImage image, int row) {
+    int[] colors = new int[image.getRunCount(row)];
+    image.getRuns(row, new int[colors.length], colors);
+    return colors;
+  }
+
+  @Test
+  public void testNewImageIsBlack() {
+    RunLengthImage image = new RunLengthImage(7, 3);
+    for (int row = 0; row < 3; row++) {
+      assertEquals(1, image.getRunCount(row));
+      assertArrayEquals(new int[]{7}, runEnds(image, row));
+      assertArrayEquals(new int[]{0}, runColors(image, row));
+    }
+  }
+
+  @Test
+  public void testAdjacentRunsOfTheSameColorAreMerged() {
+    RunLengthImage image = new RunLengthImage(10, 1);
+    image.setRuns(0, new int[]{2, 4, 5, 8, 10, 99}, new int[]{RED, RED, GREEN, GREEN, RED, 0}, 5);
+    assertEquals(3, image.getRunCount(0));
+    assertArrayEquals(new int[]{4, 8, 10}, runEnds(image, 0));
+    assertArrayEquals(new int[]{RED, GREEN, RED}, runColors(image, 0));
+  }
+
+  @Test
+  public void testPixelsAreFoundInTheirRuns() {
+    RunLengthImage image = new RunLengthImage(9, 2);
+    image.setRuns(1, new int[]{1, 4, 5, 9}, new int[]{RED, GREEN, BLUE, 0x123456}, 4);
+    int[] expected = {RED, GREEN, GREEN, GREEN, BLUE, 0x123456, 0x123456, 0x123456, 0x123456};
+    int[] rgb = new int[9 * 3];
+    image.getRowRGB(1, rgb, 0);
+    for (int col = 0; col < 9; col++) {
+      assertEquals(expected[col] >> 16 & 0xFF, image.getPixelValue(0, col, 1));
+      assertEquals(expected[col] >> 8 & 0xFF, image.getPixelValue(1, col, 1));
+      assertEquals(expected[col] & 0xFF, image.getPixelValue(2, col, 1));
+      assertEquals(expected[col] >> 16 & 0xFF, rgb[col * 3]);
+      assertEquals(expected[col] >> 8 & 0xFF, rgb[col * 3 + 1]);
+      assertEquals(expected[col] & 0xFF, rgb[col * 3 + 2]);
+      assertEquals(0, image.getPixelValue(0, col, 0));
+    }
+
+    int[] region = new int[4];
+    image.getRegion(1, 3, 0, 2, 2, region, 0);
+    assertArrayEquals(new int[]{0, 0, 0xFF, 0}, region);
+  }
+
+  @Test
+  public void testEncodeCountsRunsAndKeepsPixels() {
+    PackedImage image = new PackedImage(6, 2);
+    int[] row = {1, 2, 3, 1, 2, 3, 9, 9, 9, 9, 9, 9, 9, 9, 9, 1, 2, 3};
+    image.setRowRGB(0, row, 0);
+    RunLengthImage encoded = RunLengthImage.encode(image);
+    assertEquals(3, encoded.getRunCount(0));
+    assertArrayEquals(new int[]{2, 5, 6}, runEnds(encoded, 0));
+    assertArrayEquals(new int[]{0x010203, 0x090909, 0x010203}, runColors(encoded, 0));
+    assertEquals(1, encoded.getRunCount(1));
+
+    int[] decoded = new int[18];
+    encoded.getRowRGB(0, decoded, 0);
+    assertArrayEquals(row, decoded);
+
+    RunLengthImage copy = RunLengthImage.encode(encoded);
+    assertArrayEquals(runEnds(encoded, 0), runEnds(copy, 0));
+    assertArrayEquals(runColors(encoded, 0), runColors(copy, 0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRunsMustCoverTheRow() {
+    new RunLengthImage(5, 1).setRuns(0, new int[]{2, 4}, new int[]{RED, BLUE}, 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRunsMustIncrease() {
+    new RunLengthImage(5, 1).setRuns(0, new int[]{3, 3, 5}, new int[]{RED, BLUE, RED}, 3);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testColorsMustBeRgb() {
+    new RunLengthImage(5, 1).setRuns(0, new int[]{5}, new int[]{0x1000000}, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBufferTooSmallForRuns() {
+    RunLengthImage image = new RunLengthImage(5, 1);
+    image.setRuns(0, new int[]{1, 5}, new int[]{RED, BLUE}, 2);
+    image.getRuns(0, new int[1], new int[2]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidRow() {
+    new RunLengthImage(5, 1).getRunCount(1);
+  }
+}
@@ -0,0 +1,82 @@
+import org.junit.Test;
+
+import java.util.List;
+
+import model.tranformations.ChainedTransform;
+import model.tranformations.GreyscaleTransform;
+import model.tranformations.SepiaToneTransform;
+import model.tranformations.Transform;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * This class tests transforming pixels through the lookup tables of the color transformations.
+ */
+public class TransformTest {
+
+  private static final double[][] SEPIA = {
+      {0.393, 0.769, 0.189},
+      {0.349, 0.686, 0.168},
+      {0.272, 0.534, 0.131}};
+
+  private static int clamp(double value) {
+    return value > 255 ? 255 : value < 0 ? 0 : (int) value;
+  }
+
+  private static void checkRejected(Transform transform, int[] pixels) {
+    int[] before = pixels.clone();
+    try {
+      transform.transformPixels(pixels, 0, pixels.length / 3);
+      fail("a value outside of [0, 255] should be rejected");
+    } catch (IllegalArgumentException e) {
+      assertArrayEquals(before, pixels);
+    }
+  }
+
+  @Test
+  public void testPixelsAreMultipliedByTheMatrix() {
+    int[] pixels = {0, 0, 0, 255, 255, 255, 12, 200, 97, 255, 0, 128};
+    int[] expected = new int[pixels.length];
+    for (int i = 0; i < pixels.length; i += 3) {
+      for (int out = 0; out < 3; out++) {
+        expected[i + out] = clamp(SEPIA[out][0] * pixels[i] + SEPIA[out][1] * pixels[i + 1]
+                + SEPIA[out][2] * pixels[i + 2]);
+      }
+    }
+    new SepiaToneTransform().transformPixels(pixels, 0, 4);
+    assertArrayEquals(expected, pixels);
+  }
+
+  @Test
+  public void testOnlyTheGivenPixelsAreTransformed() {
+    int[] pixels = {7, 1, 2, 3, 9};
+    new GreyscaleTransform().transformPixels(pixels, 1, 1);
+    assertEquals(7, pixels[0]);
+    assertEquals(pixels[1], pixels[2]);
+    assertEquals(pixels[1], pixels[3]);
+    assertEquals(9, pixels[4]);
+  }
+
+  @Test
+  public void testValuesAboveTheRangeAreRejected() {
+    checkRejected(new SepiaToneTransform(), new int[]{10, 20, 30, 40, 256, 60});
+  }
+
+  @Test
+  public void testNegativeValuesAreRejected() {
+    checkRejected(new GreyscaleTransform(), new int[]{-1, 20, 30});
+  }
+
+  @Test
+  public void testChainedTransformRejectsValuesOutsideTheRange() {
+    checkRejected(new ChainedTransform(List.of(new GreyscaleTransform(),
+            new SepiaToneTransform())), new int[]{0, 1000, 0});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBufferTooSmall() {
+    new SepiaToneTransform().transformPixels(new int[5], 0, 2);
+  }
+}
@@ -0,0 +1,133 @@
+package controller;
+
+import org.junit.Test;
+
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
+
+import model.EnhancedImageModel;
+import model.EnhancedImageModelImpl;
+import model.image.GreyImage;
+import model.image.Image;
+import model.image.PackedImage;
+import model.image.TiledImage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class tests the history of edits used to undo and redo them.
+ */
+public class EditHistoryTest {
+
+  private static final int STATES = 7;
+  private static final long PACKED_BYTES = 10 * 10 * 3;
+
+  private int replays;
+
+  /**
+   * Records the states 1 to 6 after the state 0, each made by a command holding its number.
+   *
+   * @param history the history
+   * @param images  creates the image of each state
+   * @return the models of the states
+   */
+  private static EnhancedImageModel[] record(EditHistory history, IntFunction<Image> images) {
+    EnhancedImageModel[] models = new EnhancedImageModel[STATES];
+    for (int i = 0; i < STATES; i++) {
+      Image image = images.apply(i);
+      models[i] = new EnhancedImageModelImpl(image);
+      history.record("step", String.valueOf(i), models[i], image);
+    }
+    return models;
+  }
+
+  /**
+   * Returns a replay that makes the image of the state named by the command and counts itself.
+   */
+  private BiFunction<EnhancedImageModel, String[], EnhancedImageModel> replay(
+          IntFunction<Image> images) {
+    return (model, command) -> {
+      this.replays++;
+      return new EnhancedImageModelImpl(images.apply(Integer.parseInt(command[1])));
+    };
+  }
+
+  /**
+   * Undoes every edit down to the given state, returning the model of that state.
+   */
+  private EnhancedImageModel undoTo(EditHistory history, int state, IntFunction<Image> images) {
+    EnhancedImageModel model = null;
+    for (int i = STATES - 1; i > state; i--) {
+      model = history.undo(replay(images));
+    }
+    return model;
+  }
+
+  @Test
+  public void testUndoAndRedo() {
+    EditHistory history = new EditHistory(Long.MAX_VALUE);
+    IntFunction<Image> images = i -> new PackedImage(10, 10);
+    EnhancedImageModel[] models = record(history, images);
+    assertFalse(history.canRedo());
+    assertSame(models[5], history.undo(replay(images)));
+    assertSame(models[4], history.undo(replay(images)));
+    assertTrue(history.canRedo());
+    assertSame(models[5], history.redo(replay(images)));
+    assertEquals(5, history.getCommands().size());
+    assertEquals(0, this.replays);
+  }
+
+  @Test
+  public void testCheckpointsOverTheBudgetAreComputedAgain() {
+    EditHistory history = new EditHistory(PACKED_BYTES * 4);
+    IntFunction<Image> images = i -> new PackedImage(10, 10);
+    record(history, images);
+    undoTo(history, 3, images);
+    assertEquals(3, this.replays);
+  }
+
+  @Test
+  public void testGreyCheckpointsTakeOneBytePerPixel() {
+    EditHistory history = new EditHistory(PACKED_BYTES * 4);
+    IntFunction<Image> images = i -> new GreyImage(10, 10);
+    record(history, images);
+    undoTo(history, 1, images);
+    assertEquals(0, this.replays);
+  }
+
+  @Test
+  public void testCheckpointsOutsideOfTheHeapAreFree() {
+    EditHistory history = new EditHistory(0);
+    IntFunction<Image> images = i -> new TiledImage(10, 10);
+    record(history, images);
+    undoTo(history, 1, images);
+    assertEquals(0, this.replays);
+  }
+
+  @Test
+  public void testFailedReplayKeepsTheCurrentState() {
+    EditHistory history = new EditHistory(0);
+    IntFunction<Image> images = i -> new PackedImage(10, 10);
+    EnhancedImageModel[] models = record(history, images);
+    history.undo(replay(images));
+    try {
+      history.undo((model, command) -> {
+        throw new IllegalArgumentException("replay failed.");
+      });
+    } catch (IllegalArgumentException e) {
+      // The state before could not be computed.
+    }
+    assertSame(models[6], history.redo(replay(images)));
+    assertFalse(history.canRedo());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testNothingToUndo() {
+    EditHistory history = new EditHistory(0);
+    history.reset(new EnhancedImageModelImpl(new PackedImage(1, 1)), new PackedImage(1, 1));
+    history.undo(replay(i -> new PackedImage(1, 1)));
+  }
+}
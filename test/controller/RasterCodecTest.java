@@ -0,0 +1,231 @@
+package controller;
+
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import model.image.Image;
+import model.image.PackedImage;
+import model.image.RunLengthImage;
+import model.image.TiledImage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class tests converting between buffered images and the images of the model.
+ */
+public class RasterCodecTest {
+
+  private static final int WIDTH = 7;
+  private static final int HEIGHT = 5;
+
+  private static BufferedImage buffered(int type) {
+    BufferedImage image = new BufferedImage(WIDTH, HEIGHT, type);
+    for (int row = 0; row < HEIGHT; row++) {
+      for (int col = 0; col < WIDTH; col++) {
+        image.setRGB(col, row, 0x80000000 | (col * 37 % 256) << 16 | (row * 53 % 256) << 8
+                | ((col + row) * 29 % 256));
+      }
+    }
+    return image;
+  }
+
+  private static void assertSamePixels(BufferedImage expected, Image actual, int firstRow) {
+    for (int row = 0; row < expected.getHeight(); row++) {
+      for (int col = 0; col < expected.getWidth(); col++) {
+        int rgb = expected.getRGB(col, row);
+        assertEquals(rgb >> 16 & 0xFF, actual.getPixelValue(0, col, firstRow + row));
+        assertEquals(rgb >> 8 & 0xFF, actual.getPixelValue(1, col, firstRow + row));
+        assertEquals(rgb & 0xFF, actual.getPixelValue(2, col, firstRow + row));
+      }
+    }
+  }
+
+  private static PackedImage packed(int width, int height) {
+    PackedImage image = new PackedImage(width, height);
+    for (int row = 0; row < height; row++) {
+      for (int col = 0; col < width; col++) {
+        image.setPixelValue(0, col, row, col * 41 % 256);
+        image.setPixelValue(1, col, row, row * 67 % 256);
+        image.setPixelValue(2, col, row, (col * row) % 256);
+      }
+    }
+    return image;
+  }
+
+  private static int[] packedRow(int width) {
+    int[] row = new int[width * 3];
+    for (int i = 0; i < row.length; i++) {
+      row[i] = i * 7 % 256;
+    }
+    return row;
+  }
+
+  private static void assertEncoded(Image expected, BufferedImage actual) {
+    assertEquals(BufferedImage.TYPE_3BYTE_BGR, actual.getType());
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int row = 0; row < expected.getHeight(); row++) {
+      for (int col = 0; col < expected.getWidth(); col++) {
+        int rgb = actual.getRGB(col, row);
+        assertEquals(expected.getPixelValue(0, col, row), rgb >> 16 & 0xFF);
+        assertEquals(expected.getPixelValue(1, col, row), rgb >> 8 & 0xFF);
+        assertEquals(expected.getPixelValue(2, col, row), rgb & 0xFF);
+      }
+    }
+  }
+
+  private static void checkDecode(int type) {
+    BufferedImage image = buffered(type);
+    PackedImage decoded = RasterCodec.decode(image);
+    assertEquals(WIDTH, decoded.getWidth());
+    assertEquals(HEIGHT, decoded.getHeight());
+    assertSamePixels(image, decoded, 0);
+  }
+
+  @Test
+  public void testDecodeThreeByteBgr() {
+    checkDecode(BufferedImage.TYPE_3BYTE_BGR);
+  }
+
+  @Test
+  public void testDecodeFourByteAbgr() {
+    checkDecode(BufferedImage.TYPE_4BYTE_ABGR);
+  }
+
+  @Test
+  public void testDecodeGrey() {
+    checkDecode(BufferedImage.TYPE_BYTE_GRAY);
+  }
+
+  @Test
+  public void testDecodeIntRgb() {
+    checkDecode(BufferedImage.TYPE_INT_RGB);
+  }
+
+  @Test
+  public void testDecodeIntArgb() {
+    checkDecode(BufferedImage.TYPE_INT_ARGB);
+  }
+
+  @Test
+  public void testDecodeOtherLayoutsThroughTheColorModel() {
+    checkDecode(BufferedImage.TYPE_USHORT_565_RGB);
+    checkDecode(BufferedImage.TYPE_BYTE_INDEXED);
+  }
+
+  @Test
+  public void testDecodeSubimage() {
+    BufferedImage image = buffered(BufferedImage.TYPE_3BYTE_BGR).getSubimage(2, 1, 4, 3);
+    PackedImage decoded = RasterCodec.decode(image);
+    assertEquals(4, decoded.getWidth());
+    assertSamePixels(image, decoded, 0);
+  }
+
+  @Test
+  public void testDecodeStrip() {
+    PackedImage decoded = new PackedImage(WIDTH, HEIGHT * 3);
+    BufferedImage first = buffered(BufferedImage.TYPE_INT_RGB);
+    BufferedImage second = buffered(BufferedImage.TYPE_3BYTE_BGR);
+    RasterCodec.decode(first, decoded, HEIGHT);
+    RasterCodec.decode(second, decoded, HEIGHT * 2);
+    assertSamePixels(first, decoded, HEIGHT);
+    assertSamePixels(second, decoded, HEIGHT * 2);
+    for (int row = 0; row < HEIGHT; row++) {
+      for (int col = 0; col < WIDTH; col++) {
+        assertEquals(0, decoded.getPixelValue(0, col, row));
+      }
+    }
+  }
+
+  @Test
+  public void testEncode() {
+    PackedImage image = packed(WIDTH, HEIGHT);
+    assertEncoded(image, RasterCodec.encode(image, null));
+  }
+
+  @Test
+  public void testEncodeRuns() {
+    RunLengthImage image = new RunLengthImage(WIDTH, HEIGHT);
+    image.setRuns(1, new int[]{2, 3, WIDTH}, new int[]{0xFF0000, 0x00FF00, 0x123456}, 3);
+    image.setRuns(4, new int[]{WIDTH}, new int[]{0xABCDEF}, 1);
+    assertEncoded(image, RasterCodec.encode(image, null));
+  }
+
+  @Test
+  public void testEncodeLargeImageInParallel() {
+    PackedImage image = packed(1024, 300);
+    assertEncoded(image, RasterCodec.encode(image, null));
+  }
+
+  @Test
+  public void testEncodeReusesImageOfTheSameSize() {
+    BufferedImage reused = RasterCodec.encode(packed(WIDTH, HEIGHT), null);
+    RunLengthImage image = new RunLengthImage(WIDTH, HEIGHT);
+    assertSame(reused, RasterCodec.encode(image, reused));
+    assertEncoded(image, reused);
+  }
+
+  @Test
+  public void testEncodeReplacesImageThatCannotBeReused() {
+    PackedImage image = packed(WIDTH, HEIGHT);
+    BufferedImage smaller = new BufferedImage(WIDTH, HEIGHT - 1, BufferedImage.TYPE_3BYTE_BGR);
+    BufferedImage encoded = RasterCodec.encode(image, smaller);
+    assertNotSame(smaller, encoded);
+    assertEncoded(image, encoded);
+
+    BufferedImage other = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+    encoded = RasterCodec.encode(image, other);
+    assertNotSame(other, encoded);
+    assertEncoded(image, encoded);
+
+    BufferedImage subimage = new BufferedImage(WIDTH + 2, HEIGHT + 2,
+            BufferedImage.TYPE_3BYTE_BGR).getSubimage(1, 1, WIDTH, HEIGHT);
+    encoded = RasterCodec.encode(image, subimage);
+    assertNotSame(subimage, encoded);
+    assertEncoded(image, encoded);
+  }
+
+  @Test
+  public void testEncodeInStrips() {
+    PackedImage image = packed(700, 900);
+    RenderedImage strips = RasterCodec.encodeInStrips(image);
+    assertEquals(700, strips.getWidth());
+    assertEquals(900, strips.getHeight());
+    assertTrue(strips.getNumYTiles() > 1);
+    assertTrue((long) strips.getTileHeight() * 700 * 3 <= 1 << 20);
+
+    Raster tile = strips.getTile(0, 1);
+    assertEquals(strips.getTileHeight(), tile.getMinY());
+    Raster region = strips.getData(new Rectangle(5, 890, 20, 30));
+    assertEquals(10, region.getHeight());
+    for (int channel = 0; channel < 3; channel++) {
+      assertEquals(image.getPixelValue(channel, 0, tile.getMinY()),
+              tile.getSample(0, tile.getMinY(), channel));
+      assertEquals(image.getPixelValue(channel, 24, 899), region.getSample(24, 899, channel));
+    }
+  }
+
+  @Test
+  public void testWriteStripsOfImageOutsideOfTheHeap() throws IOException {
+    TiledImage image = new TiledImage(300, 200, 64);
+    image.setRowRGB(150, packedRow(300), 0);
+    for (String format : new String[]{"png", "bmp"}) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      assertTrue(ImageIO.write(RasterCodec.encodeInStrips(image), format, out));
+      BufferedImage read = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+      assertSamePixels(read, image, 0);
+    }
+  }
+}
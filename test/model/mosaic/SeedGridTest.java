@@ -0,0 +1,96 @@
+package model.mosaic;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * This class tests finding the seed of a mosaic closest to a pixel.
+ */
+public class SeedGridTest {
+
+  /**
+   * Finds the closest seed by comparing the pixel with every seed, preferring the first of the
+   * seeds that are equally close.
+   */
+  private static int bruteForce(int[][] seedPoints, int row, int column) {
+    long minDistance = Long.MAX_VALUE;
+    int seedInd = -1;
+    for (int seed = 0; seed < seedPoints.length; seed++) {
+      long rowDistance = seedPoints[seed][0] - row;
+      long columnDistance = seedPoints[seed][1] - column;
+      long distance = rowDistance * rowDistance + columnDistance * columnDistance;
+      if (distance < minDistance) {
+        minDistance = distance;
+        seedInd = seed;
+      }
+    }
+    return seedInd;
+  }
+
+  private static void checkEveryPixel(int[][] seedPoints, int rows, int columns) {
+    SeedGrid grid = new SeedGrid(seedPoints, rows, columns);
+    for (int row = 0; row < rows; row++) {
+      for (int column = 0; column < columns; column++) {
+        assertEquals(bruteForce(seedPoints, row, column), grid.nearestSeed(row, column));
+      }
+    }
+  }
+
+  @Test
+  public void testTieChoosesFirstSeed() {
+    int[][] seedPoints = {{0, 4}, {0, 0}, {4, 0}, {4, 4}};
+    SeedGrid grid = new SeedGrid(seedPoints, 5, 5);
+    assertEquals(1, grid.nearestSeed(0, 0));
+    assertEquals(0, grid.nearestSeed(0, 2));
+    assertEquals(1, grid.nearestSeed(2, 0));
+    assertEquals(2, grid.nearestSeed(4, 2));
+    assertEquals(0, grid.nearestSeed(2, 4));
+    assertEquals(0, grid.nearestSeed(2, 2));
+  }
+
+  @Test
+  public void testTieAcrossCellsChoosesFirstSeed() {
+    // The cells are 10 pixels wide. The later seed sits in the cell of the pixel and is found
+    // first, the earlier one equally far away in the neighbouring cell.
+    int[][] seedPoints = {{10, 1}, {10, 19}, {0, 0}, {19, 19}};
+    assertEquals(0, new SeedGrid(seedPoints, 20, 20).nearestSeed(10, 10));
+    seedPoints = new int[][]{{10, 19}, {10, 1}, {0, 0}, {19, 19}};
+    assertEquals(0, new SeedGrid(seedPoints, 20, 20).nearestSeed(10, 10));
+  }
+
+  @Test
+  public void testDuplicateSeedsChooseFirst() {
+    int[][] seedPoints = {{3, 3}, {7, 7}, {3, 3}, {7, 7}};
+    SeedGrid grid = new SeedGrid(seedPoints, 10, 10);
+    assertEquals(0, grid.nearestSeed(3, 3));
+    assertEquals(1, grid.nearestSeed(7, 7));
+    assertEquals(0, grid.nearestSeed(5, 5));
+  }
+
+  @Test
+  public void testLatticeOfTiesMatchesBruteForce() {
+    int[][] seedPoints = new int[36][];
+    for (int i = 0; i < 36; i++) {
+      seedPoints[i] = new int[]{(35 - i) / 6 * 6, i % 6 * 6};
+    }
+    checkEveryPixel(seedPoints, 36, 36);
+  }
+
+  @Test
+  public void testRandomSeedsMatchBruteForce() {
+    Random random = new Random(7);
+    int[][] seedPoints = new int[50][];
+    for (int i = 0; i < seedPoints.length; i++) {
+      seedPoints[i] = new int[]{random.nextInt(23), random.nextInt(61)};
+    }
+    checkEveryPixel(seedPoints, 23, 61);
+  }
+
+  @Test
+  public void testSingleSeed() {
+    checkEveryPixel(new int[][]{{5, 9}}, 12, 17);
+  }
+}